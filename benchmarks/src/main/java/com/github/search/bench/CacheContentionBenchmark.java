@@ -0,0 +1,75 @@
+package com.github.search.bench;
+
+import com.github.search.GitHubUser;
+import com.github.search.ResponseCache;
+import com.github.search.TtlCache;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Hit-path lookups in the object and HTTP caches, from one thread and from eight, to show
+ * what their single locks cost under contention. Every key is present, so nothing loads.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheContentionBenchmark {
+    
+    private static final int KEYS = 256;
+    private static final long ONE_HOUR = 60 * 60 * 1000L;
+    
+    private TtlCache<String, GitHubUser> users;
+    private ResponseCache responses;
+    private String[] logins;
+    private String[] urls;
+    
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+    
+    @Setup
+    public void setUp() {
+        users = new TtlCache<>(KEYS, ONE_HOUR, ONE_HOUR);
+        responses = new ResponseCache(KEYS);
+        logins = new String[KEYS];
+        urls = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            logins[i] = "user-" + i;
+            urls[i] = "https://api.github.com/users/" + logins[i];
+            GitHubUser user = new GitHubUser(logins[i], null, null, null, 0, 0, 0, null, null, null, null, null, null);
+            users.put(logins[i], user);
+            responses.put(urls[i], "\"etag-" + i + "\"", null, ONE_HOUR, null, user);
+        }
+    }
+    
+    @Benchmark
+    public CompletableFuture<GitHubUser> objectCache(Cursor cursor) {
+        return users.get(logins[cursor.next++ & (KEYS - 1)], CacheContentionBenchmark::unexpectedLoad);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public CompletableFuture<GitHubUser> objectCacheContended(Cursor cursor) {
+        return users.get(logins[cursor.next++ & (KEYS - 1)], CacheContentionBenchmark::unexpectedLoad);
+    }
+    
+    @Benchmark
+    public ResponseCache.Entry responseCache(Cursor cursor) {
+        return responses.get(urls[cursor.next++ & (KEYS - 1)]);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public ResponseCache.Entry responseCacheContended(Cursor cursor) {
+        return responses.get(urls[cursor.next++ & (KEYS - 1)]);
+    }
+    
+    private static CompletableFuture<GitHubUser> unexpectedLoad(String login) {
+        throw new IllegalStateException("Benchmark key missing from cache: " + login);
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.search.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Recorded GitHub API payloads bundled under {@code fixtures/}, so every benchmark runs offline.
+ */
+public final class Fixtures {
+    
+    public static final String USER = "user.json";
+    public static final String REPOS_100 = "repos_100.json";
+    // A large organisation's repositories in one array, as the blocking getUserRepositories path would see them
+    public static final String ORG_REPOS_500 = "org_repos_500.json";
+    
+    private Fixtures() {
+    }
+    
+    public static byte[] load(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Missing fixture: " + name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
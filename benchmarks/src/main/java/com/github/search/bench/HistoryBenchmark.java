@@ -0,0 +1,96 @@
+package com.github.search.bench;
+
+import com.github.search.UserHistoryService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * History and favorites mutations in memory, and the cost of making them durable.
+ * {@code addAndFlush} waits for each change to reach disk, so with several threads it
+ * shows how much the journal writer's group commit amortises the fsync.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryBenchmark {
+    
+    private static final int USERS = 1024;
+    
+    private Path directory;
+    private UserHistoryService history;
+    private String[] usernames;
+    
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+    
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("history-bench");
+        history = new UserHistoryService(directory);
+        usernames = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            usernames[i] = "user-" + i;
+            if (i % 2 == 0) {
+                history.addToFavorites(usernames[i]);
+            }
+        }
+        history.flush();
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        history.flush();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+    
+    @Benchmark
+    public void addToHistory(Cursor cursor) {
+        history.addToHistory(next(cursor));
+    }
+    
+    @Benchmark
+    public void toggleFavorite(Cursor cursor) {
+        String username = next(cursor);
+        if (history.isFavorite(username)) {
+            history.removeFromFavorites(username);
+        } else {
+            history.addToFavorites(username);
+        }
+    }
+    
+    @Benchmark
+    public boolean isFavorite(Cursor cursor) {
+        return history.isFavorite(next(cursor));
+    }
+    
+    @Benchmark
+    public void addAndFlush(Cursor cursor) {
+        history.addToHistory(next(cursor));
+        history.flush();
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public void addAndFlushConcurrent(Cursor cursor) {
+        history.addToHistory(next(cursor));
+        history.flush();
+    }
+    
+    private String next(Cursor cursor) {
+        return usernames[cursor.next++ & (USERS - 1)];
+    }
+}
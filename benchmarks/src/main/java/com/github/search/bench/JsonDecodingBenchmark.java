@@ -0,0 +1,79 @@
+package com.github.search.bench;
+
+import com.github.search.GitHubJsonDecoder;
+import com.github.search.GitHubRepository;
+import com.github.search.GitHubUser;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Tree-based decoding (body collected into a String, then a Gson DOM) against the
+ * streaming {@link GitHubJsonDecoder} path. Run with {@code -prof gc} to compare
+ * allocation per operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonDecodingBenchmark {
+    
+    private byte[] userBytes;
+    private byte[] reposBytes;
+    private byte[] orgReposBytes;
+    
+    @Setup
+    public void setUp() {
+        userBytes = Fixtures.load(Fixtures.USER);
+        reposBytes = Fixtures.load(Fixtures.REPOS_100);
+        orgReposBytes = Fixtures.load(Fixtures.ORG_REPOS_500);
+    }
+    
+    @Benchmark
+    public GitHubUser userTree() throws IOException {
+        return GitHubJsonDecoder.parseUserTree(readBody(userBytes));
+    }
+    
+    @Benchmark
+    public GitHubUser userStreaming() throws IOException {
+        return GitHubJsonDecoder.decode(new ByteArrayInputStream(userBytes), GitHubJsonDecoder::readUser);
+    }
+    
+    @Benchmark
+    public List<GitHubRepository> repositoriesTree() throws IOException {
+        return GitHubJsonDecoder.parseRepositoriesTree(readBody(reposBytes));
+    }
+    
+    @Benchmark
+    public List<GitHubRepository> repositoriesStreaming() throws IOException {
+        return GitHubJsonDecoder.decode(new ByteArrayInputStream(reposBytes), GitHubJsonDecoder::readRepositories);
+    }
+    
+    @Benchmark
+    public List<GitHubRepository> organisationTree() throws IOException {
+        return GitHubJsonDecoder.parseRepositoriesTree(readBody(orgReposBytes));
+    }
+    
+    @Benchmark
+    public List<GitHubRepository> organisationStreaming() throws IOException {
+        return GitHubJsonDecoder.decode(new ByteArrayInputStream(orgReposBytes), GitHubJsonDecoder::readRepositories);
+    }
+    
+    // What the old makeHttpRequest did with the connection stream before parsing
+    private static String readBody(byte[] body) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body)));
+        StringBuilder response = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            response.append(line);
+        }
+        reader.close();
+        return response.toString();
+    }
+}
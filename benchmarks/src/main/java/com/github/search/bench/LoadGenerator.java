@@ -0,0 +1,179 @@
+package com.github.search.bench;
+
+import com.github.search.ApiMetrics;
+import com.github.search.GitHubApiService;
+import com.github.search.LatencyHistogram;
+import com.github.search.RateLimitScheduler;
+import com.github.search.ResponseCache;
+import com.github.search.RetryPolicy;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load test of {@link GitHubApiService}: requests are started on a fixed schedule
+ * at the target rate whether or not earlier ones have finished, and each latency is measured
+ * from its scheduled start, so a slow client shows up as tail latency instead of a lower rate.
+ *
+ * By default it starts an in-process {@link MockGitHubServer}; pass --base to aim at another one.
+ *
+ * Requests issued during the warm-up (class loading, JIT, opening connections) are sent but
+ * not counted. Injected errors and stalls exercise the client's retries, timeouts, hedging and
+ * circuit breaker; the summary shows what each of them did.
+ *
+ * Usage: LoadGenerator [--rate 200] [--duration 30] [--warmup 5] [--users 500] [--repos-ratio 0.5]
+ *                      [--cache true] [--latency 20] [--jitter 10] [--error-rate 0.0]
+ *                      [--max-age 0] [--stall-rate 0.0] [--stall 5000] [--retries 3] [--hedge false]
+ *                      [--timeout 10000] [--base http://host:port]
+ */
+public class LoadGenerator {
+    
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    
+    private final GitHubApiService apiService;
+    private final double rate;
+    private final int users;
+    private final double reposRatio;
+    
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong completed = new AtomicLong();
+    private final Map<String, AtomicLong> failures = new ConcurrentHashMap<>();
+    
+    public LoadGenerator(GitHubApiService apiService, double rate, int users, double reposRatio) {
+        this.apiService = apiService;
+        this.rate = rate;
+        this.users = users;
+        this.reposRatio = reposRatio;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        double rate = Double.parseDouble(options.getOrDefault("--rate", "200"));
+        int seconds = Integer.parseInt(options.getOrDefault("--duration", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("--warmup", "5"));
+        int users = Integer.parseInt(options.getOrDefault("--users", "500"));
+        double reposRatio = Double.parseDouble(options.getOrDefault("--repos-ratio", "0.5"));
+        boolean cache = Boolean.parseBoolean(options.getOrDefault("--cache", "true"));
+        
+        MockGitHubServer mock = null;
+        String base = options.get("--base");
+        if (base == null) {
+            mock = new MockGitHubServer(0)
+                    .latency(Long.parseLong(options.getOrDefault("--latency", "20")),
+                            Long.parseLong(options.getOrDefault("--jitter", "10")))
+                    .errorRate(Double.parseDouble(options.getOrDefault("--error-rate", "0")))
+                    .maxAge(Integer.parseInt(options.getOrDefault("--max-age", "0")))
+                    .stall(Double.parseDouble(options.getOrDefault("--stall-rate", "0")),
+                            Long.parseLong(options.getOrDefault("--stall", "5000")))
+                    .start();
+            base = mock.getBaseUrl();
+        }
+        
+        // Plain-HTTP mock: skip the h2c upgrade attempt; the scheduler must not be the bottleneck
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        RateLimitScheduler scheduler = new RateLimitScheduler(rate * 2, (int) Math.max(1, rate));
+        GitHubApiService service = new GitHubApiService(client, cache ? new ResponseCache(users * 2) : null,
+                scheduler, base);
+        service.setRetryPolicy(new RetryPolicy(Integer.parseInt(options.getOrDefault("--retries", "3")), 200, 5000));
+        service.setHedging(Boolean.parseBoolean(options.getOrDefault("--hedge", "false")));
+        Duration timeout = Duration.ofMillis(Long.parseLong(options.getOrDefault("--timeout", "10000")));
+        service.setTimeouts(timeout, timeout.multipliedBy(2));
+        
+        System.err.printf(Locale.ROOT, "Driving %s at %.0f req/s for %ds after %ds warm-up (%d users, cache %s)%n",
+                base, rate, seconds, warmup, users, cache ? "on" : "off");
+        LoadGenerator generator = new LoadGenerator(service, rate, users, reposRatio);
+        generator.run(Duration.ofSeconds(warmup), Duration.ofSeconds(seconds));
+        
+        if (mock != null) {
+            System.err.printf(Locale.ROOT, "Mock server: %d requests, %d not modified, %d injected errors, %d stalled%n",
+                    mock.getRequestCount(), mock.getNotModifiedCount(), mock.getInjectedErrorCount(),
+                    mock.getStalledCount());
+            mock.close();
+        }
+        System.exit(0);
+    }
+    
+    public void run(Duration warmup, Duration duration) throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long warmupStart = System.nanoTime();
+        long start = warmupStart + warmup.toNanos();
+        long end = start + duration.toNanos();
+        long nextReport = start + REPORT_INTERVAL_NANOS;
+        long issued = 0;
+        
+        AtomicLong outstanding = new AtomicLong();
+        for (long scheduled = warmupStart; scheduled < end; scheduled += intervalNanos) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = scheduled >= start;
+            issue(scheduled, measured, outstanding);
+            if (measured) {
+                issued++;
+            }
+            if (System.nanoTime() >= nextReport) {
+                report("progress", issued, System.nanoTime() - start);
+                nextReport += REPORT_INTERVAL_NANOS;
+            }
+        }
+        while (outstanding.get() > 0) {
+            Thread.sleep(10);
+        }
+        report("total", issued, System.nanoTime() - start);
+        ApiMetrics metrics = apiService.getMetrics();
+        System.err.printf(Locale.ROOT, "Client: %d retries, %d hedged, circuit %s (opened %d times, %d calls refused)%n",
+                metrics.getRetryCount(), metrics.getHedgeCount(), metrics.getCircuitState(),
+                apiService.getCircuitBreaker().getTimesOpened(), metrics.getCircuitRejectedCount());
+    }
+    
+    private void issue(long scheduledNanos, boolean measured, AtomicLong outstanding) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String login = "user" + random.nextInt(users);
+        CompletableFuture<?> call = random.nextDouble() < reposRatio
+                ? apiService.getUserRepositoriesAsync(login, 30, RateLimitScheduler.Priority.INTERACTIVE)
+                : apiService.getUserAsync(login, RateLimitScheduler.Priority.INTERACTIVE);
+        outstanding.incrementAndGet();
+        call.whenComplete((value, error) -> {
+            outstanding.decrementAndGet();
+            if (!measured) {
+                return;
+            }
+            latency.recordNanos(System.nanoTime() - scheduledNanos);
+            if (error == null) {
+                completed.incrementAndGet();
+            } else {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                failures.computeIfAbsent(cause.getClass().getSimpleName(), k -> new AtomicLong()).incrementAndGet();
+            }
+        });
+    }
+    
+    private void report(String label, long issued, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        ResponseCache cache = apiService.getResponseCache();
+        System.err.printf(Locale.ROOT,
+                "%-8s %6.1fs issued %d, ok %d (%.1f/s), p50 %.1fms p90 %.1fms p99 %.1fms p99.9 %.1fms max %.1fms%s%s%n",
+                label, seconds, issued, completed.get(), completed.get() / seconds,
+                latency.getPercentileMicros(50) / 1000.0, latency.getPercentileMicros(90) / 1000.0,
+                latency.getPercentileMicros(99) / 1000.0, latency.getPercentileMicros(99.9) / 1000.0,
+                latency.getMaxMicros() / 1000.0,
+                cache == null ? "" : String.format(Locale.ROOT, ", cache %d hit / %d revalidated / %d miss",
+                        cache.getHitCount(), cache.getRevalidationCount(), cache.getMissCount()),
+                failures.isEmpty() ? "" : ", failures " + failures);
+    }
+}
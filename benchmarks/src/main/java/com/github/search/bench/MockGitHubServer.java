@@ -0,0 +1,521 @@
+package com.github.search.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the parts of the GitHub REST API the app uses, built from the recorded
+ * fixtures: {@code /users/{login}}, {@code /users/{login}/repos} and
+ * {@code /users/{login}/followers|following}, with page/per_page, {@code /search/users} and a
+ * GraphQL {@code /graphql} that answers the profile query of {@link com.github.search.GitHubGraphQL}.
+ *
+ * Every login exists (logins starting with "missing" return 404) and owns the same number of
+ * repositories taken from the organisation fixture. Followers and following lists are drawn
+ * deterministically from a synthetic population of accounts named "user0", "user1", ... User search
+ * looks through a fixed set of made-up logins, prefix matches first. Responses carry ETag, Link and
+ * X-RateLimit-* headers like the real API and honour If-None-Match. Latency, jitter, the
+ * quota, random failures and random stalls are configurable, so the client can be load-tested
+ * offline. A GraphQL query counts once against the quota however many users it asks for,
+ * and one that would return more than the node limit is refused the way GitHub does it.
+ *
+ * Usage: MockGitHubServer [--port 8089] [--latency 20] [--jitter 10] [--error-rate 0.0]
+ *                         [--quota 1000000] [--repos 100] [--max-age 0]
+ *                         [--follows 30] [--population 1000000] [--stall-rate 0.0] [--stall 5000]
+ *                         [--max-nodes 500000]
+ */
+public class MockGitHubServer implements AutoCloseable {
+    
+    private static final Pattern USER = Pattern.compile("^/users/([^/]+)$");
+    private static final Pattern REPOS = Pattern.compile("^/users/([^/]+)/repos$");
+    private static final Pattern FOLLOWS = Pattern.compile("^/users/([^/]+)/(followers|following)$");
+    private static final Pattern ALIAS = Pattern.compile("(\\w+)\\s*:\\s*(?:user|repositoryOwner)\\(login:\\s*\\$(\\w+)\\)");
+    private static final long FOLLOW_STRIDE = 7919;
+    private static final long QUOTA_WINDOW_MILLIS = 60 * 60 * 1000L;
+    private static final String[] SYLLABLES = { "an", "ben", "cat", "dev", "el", "git", "is", "jo", "ka", "li",
+        "lu", "max", "mi", "na", "on", "ro", "sam", "te", "zo", "ar" };
+    private static final int SEARCHABLE_LOGINS = 20_000;
+    
+    private final HttpServer server;
+    private final Gson gson = new Gson();
+    private final JsonObject userTemplate;
+    private final String[] repositoryJson;
+    private final JsonObject[] graphQLRepositories;
+    private final String[] searchableLogins;
+    
+    private volatile long latencyMillis;
+    private volatile long jitterMillis;
+    private volatile double errorRate;
+    private volatile int errorStatus = 500;
+    private volatile double stallRate;
+    private volatile long stallMillis;
+    private volatile int quota = 1_000_000;
+    private volatile int repositoriesPerUser = 100;
+    private volatile int maxAgeSeconds;
+    private volatile int followsPerUser = 30;
+    private volatile int population = 1_000_000;
+    private volatile int maxNodes = 500_000;
+    
+    private final Object quotaLock = new Object();
+    private long windowStart = System.currentTimeMillis();
+    private int used;
+    
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong stalled = new AtomicLong();
+    private final AtomicLong graphQLQueries = new AtomicLong();
+    private final AtomicLong searches = new AtomicLong();
+    
+    public MockGitHubServer(int port) throws IOException {
+        userTemplate = gson.fromJson(new String(Fixtures.load(Fixtures.USER), StandardCharsets.UTF_8),
+                JsonObject.class);
+        JsonArray repositories = gson.fromJson(new String(Fixtures.load(Fixtures.ORG_REPOS_500),
+                StandardCharsets.UTF_8), JsonArray.class);
+        repositoryJson = new String[repositories.size()];
+        for (int i = 0; i < repositoryJson.length; i++) {
+            repositoryJson[i] = gson.toJson(repositories.get(i));
+        }
+        graphQLRepositories = new JsonObject[repositories.size()];
+        for (int i = 0; i < graphQLRepositories.length; i++) {
+            graphQLRepositories[i] = toGraphQL(repositories.get(i).getAsJsonObject());
+        }
+        searchableLogins = searchableLogins(SEARCHABLE_LOGINS);
+        
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        MockGitHubServer mock = new MockGitHubServer(Integer.parseInt(options.getOrDefault("--port", "8089")))
+                .latency(Long.parseLong(options.getOrDefault("--latency", "20")),
+                        Long.parseLong(options.getOrDefault("--jitter", "10")))
+                .errorRate(Double.parseDouble(options.getOrDefault("--error-rate", "0")))
+                .quota(Integer.parseInt(options.getOrDefault("--quota", "1000000")))
+                .repositoriesPerUser(Integer.parseInt(options.getOrDefault("--repos", "100")))
+                .maxAge(Integer.parseInt(options.getOrDefault("--max-age", "0")))
+                .follows(Integer.parseInt(options.getOrDefault("--follows", "30")),
+                        Integer.parseInt(options.getOrDefault("--population", "1000000")))
+                .stall(Double.parseDouble(options.getOrDefault("--stall-rate", "0")),
+                        Long.parseLong(options.getOrDefault("--stall", "5000")))
+                .maxNodes(Integer.parseInt(options.getOrDefault("--max-nodes", "500000")));
+        mock.start();
+        System.err.println("Mock GitHub API listening on " + mock.getBaseUrl()
+                + " (run the app with -Dgithub.api.base=" + mock.getBaseUrl() + ")");
+    }
+    
+    public MockGitHubServer latency(long millis, long jitterMillis) {
+        this.latencyMillis = millis;
+        this.jitterMillis = jitterMillis;
+        return this;
+    }
+    
+    /** Fraction of requests (0-1) answered with {@code status} instead of data. */
+    public MockGitHubServer errorRate(double rate, int status) {
+        this.errorRate = rate;
+        this.errorStatus = status;
+        return this;
+    }
+    
+    public MockGitHubServer errorRate(double rate) {
+        return errorRate(rate, 500);
+    }
+    
+    /** Fraction of requests (0-1) that hang for {@code millis} before answering, like a stuck upstream. */
+    public MockGitHubServer stall(double rate, long millis) {
+        this.stallRate = rate;
+        this.stallMillis = millis;
+        return this;
+    }
+    
+    /** Requests allowed per hour before answering 403 with X-RateLimit-Remaining: 0. */
+    public MockGitHubServer quota(int requestsPerHour) {
+        this.quota = requestsPerHour;
+        return this;
+    }
+    
+    public MockGitHubServer repositoriesPerUser(int count) {
+        this.repositoriesPerUser = Math.min(count, repositoryJson.length);
+        return this;
+    }
+    
+    /** Cache-Control max-age sent with each response; 0 makes every repeat a conditional request. */
+    public MockGitHubServer maxAge(int seconds) {
+        this.maxAgeSeconds = seconds;
+        return this;
+    }
+    
+    /** Length of every followers and following list, drawn from {@code population} synthetic accounts. */
+    public MockGitHubServer follows(int perUser, int population) {
+        this.followsPerUser = perUser;
+        this.population = population;
+        return this;
+    }
+    
+    /** Largest number of users plus repositories one GraphQL query may return. */
+    public MockGitHubServer maxNodes(int nodes) {
+        this.maxNodes = nodes;
+        return this;
+    }
+    
+    public MockGitHubServer start() {
+        server.start();
+        return this;
+    }
+    
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    public long getRequestCount() { return requests.get(); }
+    public long getNotModifiedCount() { return notModified.get(); }
+    public long getInjectedErrorCount() { return injectedErrors.get(); }
+    public long getRateLimitedCount() { return rateLimited.get(); }
+    public long getStalledCount() { return stalled.get(); }
+    public long getGraphQLQueryCount() { return graphQLQueries.get(); }
+    public long getSearchCount() { return searches.get(); }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            simulateLatency();
+            if (stallRate > 0 && ThreadLocalRandom.current().nextDouble() < stallRate) {
+                stalled.incrementAndGet();
+                sleep(stallMillis);
+            }
+            
+            int remaining = takeQuota();
+            exchange.getResponseHeaders().set("X-RateLimit-Limit", Integer.toString(quota));
+            exchange.getResponseHeaders().set("X-RateLimit-Remaining", Integer.toString(Math.max(0, remaining)));
+            exchange.getResponseHeaders().set("X-RateLimit-Reset", Long.toString(resetEpochSeconds()));
+            if (remaining < 0) {
+                rateLimited.incrementAndGet();
+                send(exchange, 403, "{\"message\":\"API rate limit exceeded\"}");
+                return;
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.incrementAndGet();
+                send(exchange, errorStatus, "{\"message\":\"Injected failure\"}");
+                return;
+            }
+            
+            URI uri = exchange.getRequestURI();
+            if ("/graphql".equals(uri.getPath()) && "POST".equals(exchange.getRequestMethod())) {
+                graphQLQueries.incrementAndGet();
+                send(exchange, 200, graphQL(exchange.getRequestBody()));
+                return;
+            }
+            if ("/search/users".equals(uri.getPath())) {
+                searches.incrementAndGet();
+                Map<String, String> query = query(uri.getRawQuery());
+                String term = URLDecoder.decode(query.getOrDefault("q", ""), StandardCharsets.UTF_8);
+                sendCacheable(exchange, searchJson(term.replace("in:login", "").trim(),
+                        Math.min(100, Integer.parseInt(query.getOrDefault("per_page", "30")))));
+                return;
+            }
+            Matcher user = USER.matcher(uri.getPath());
+            Matcher repos = REPOS.matcher(uri.getPath());
+            Matcher follows = FOLLOWS.matcher(uri.getPath());
+            String login = user.matches() ? user.group(1) : repos.matches() ? repos.group(1)
+                    : follows.matches() ? follows.group(1) : null;
+            if (login == null || login.startsWith("missing")) {
+                send(exchange, 404, "{\"message\":\"Not Found\"}");
+            } else if (user.matches()) {
+                sendCacheable(exchange, userJson(login));
+            } else {
+                Map<String, String> query = query(uri.getRawQuery());
+                int perPage = Math.min(100, Integer.parseInt(query.getOrDefault("per_page", "30")));
+                int page = Math.max(1, Integer.parseInt(query.getOrDefault("page", "1")));
+                int total = repos.matches() ? repositoriesPerUser : followsPerUser;
+                int lastPage = Math.max(1, (total + perPage - 1) / perPage);
+                if (page < lastPage) {
+                    String base = getBaseUrl() + uri.getPath() + "?per_page=" + perPage + "&page=";
+                    exchange.getResponseHeaders().set("Link", "<" + base + (page + 1) + ">; rel=\"next\", <"
+                            + base + lastPage + ">; rel=\"last\"");
+                }
+                sendCacheable(exchange, repos.matches()
+                        ? repositoriesJson((page - 1) * perPage, perPage)
+                        : accountsJson(login + "/" + follows.group(2), (page - 1) * perPage, perPage));
+            }
+        }
+    }
+    
+    private String userJson(String login) {
+        JsonObject user = userTemplate.deepCopy();
+        user.addProperty("login", login);
+        user.addProperty("html_url", "https://github.com/" + login);
+        user.addProperty("public_repos", repositoriesPerUser);
+        return gson.toJson(user);
+    }
+    
+    private String searchJson(String term, int perPage) {
+        String key = term.toLowerCase(Locale.ROOT);
+        List<String> prefixed = new ArrayList<>();
+        List<String> containing = new ArrayList<>();
+        for (String login : searchableLogins) {
+            if (login.startsWith(key)) {
+                prefixed.add(login);
+            } else if (login.contains(key)) {
+                containing.add(login);
+            }
+        }
+        prefixed.addAll(containing);
+        JsonArray items = new JsonArray();
+        for (String login : prefixed.subList(0, Math.min(perPage, prefixed.size()))) {
+            JsonObject item = new JsonObject();
+            item.addProperty("login", login);
+            item.addProperty("id", Math.abs((long) login.hashCode()));
+            item.addProperty("type", "User");
+            items.add(item);
+        }
+        JsonObject result = new JsonObject();
+        result.addProperty("total_count", prefixed.size());
+        result.addProperty("incomplete_results", false);
+        result.add("items", items);
+        return gson.toJson(result);
+    }
+    
+    // Two to four syllables and sometimes a number, the same set on every run
+    private static String[] searchableLogins(int count) {
+        Random random = new Random(42);
+        TreeSet<String> logins = new TreeSet<>();
+        while (logins.size() < count) {
+            StringBuilder login = new StringBuilder();
+            for (int i = 2 + random.nextInt(3); i > 0; i--) {
+                login.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            if (random.nextBoolean()) {
+                login.append(random.nextInt(100));
+            }
+            logins.add(login.toString());
+        }
+        return logins.toArray(new String[0]);
+    }
+    
+    // Answers the aliased profile query; every other kind of query gets an empty result
+    private String graphQL(InputStream requestBody) throws IOException {
+        JsonObject request = gson.fromJson(new String(requestBody.readAllBytes(), StandardCharsets.UTF_8),
+                JsonObject.class);
+        JsonObject variables = request.has("variables") ? request.getAsJsonObject("variables") : new JsonObject();
+        int first = variables.has("repositories") ? variables.get("repositories").getAsInt() : 0;
+        Matcher alias = ALIAS.matcher(request.get("query").getAsString());
+        
+        JsonObject data = new JsonObject();
+        JsonArray errors = new JsonArray();
+        int nodes = 0;
+        while (alias.find()) {
+            String login = variables.get(alias.group(2)).getAsString();
+            nodes += 1 + Math.min(first, repositoriesPerUser);
+            if (login.startsWith("missing")) {
+                data.add(alias.group(1), JsonNull.INSTANCE);
+                JsonObject error = new JsonObject();
+                error.addProperty("type", "NOT_FOUND");
+                JsonArray path = new JsonArray();
+                path.add(alias.group(1));
+                error.add("path", path);
+                error.addProperty("message", "Could not resolve to a RepositoryOwner with the login of '" + login + "'.");
+                errors.add(error);
+            } else {
+                data.add(alias.group(1), graphQLUser(login, first));
+            }
+        }
+        
+        JsonObject response = new JsonObject();
+        if (nodes > maxNodes) {
+            JsonObject error = new JsonObject();
+            error.addProperty("type", "MAX_NODE_LIMIT_EXCEEDED");
+            error.addProperty("message", "This query requests up to " + nodes + " possible nodes which exceeds the"
+                    + " maximum limit of " + maxNodes + ".");
+            errors = new JsonArray();
+            errors.add(error);
+        } else {
+            response.add("data", data);
+        }
+        if (!errors.isEmpty()) {
+            response.add("errors", errors);
+        }
+        return gson.toJson(response);
+    }
+    
+    // Logins starting with "org" are organisations: a description instead of a bio, no follower counts
+    private JsonElement graphQLUser(String login, int first) {
+        boolean organization = login.startsWith("org");
+        JsonObject user = new JsonObject();
+        user.addProperty("login", login);
+        user.add("name", userTemplate.get("name"));
+        user.add("avatarUrl", userTemplate.get("avatar_url"));
+        user.add(organization ? "description" : "bio", userTemplate.get("bio"));
+        user.add("location", userTemplate.get("location"));
+        user.add("websiteUrl", userTemplate.get("blog"));
+        if (!organization) {
+            user.add("company", userTemplate.get("company"));
+        }
+        user.add("email", userTemplate.get("email"));
+        user.add("createdAt", userTemplate.get("created_at"));
+        user.addProperty("url", "https://github.com/" + login);
+        if (!organization) {
+            user.add("followers", totalCount(userTemplate.get("followers").getAsInt()));
+            user.add("following", totalCount(userTemplate.get("following").getAsInt()));
+        }
+        JsonObject repositories = totalCount(repositoriesPerUser);
+        JsonArray nodes = new JsonArray();
+        for (int i = 0; i < Math.min(first, repositoriesPerUser); i++) {
+            nodes.add(graphQLRepositories[i]);
+        }
+        repositories.add("nodes", nodes);
+        user.add("repositories", repositories);
+        return user;
+    }
+    
+    private static JsonObject totalCount(int count) {
+        JsonObject connection = new JsonObject();
+        connection.addProperty("totalCount", count);
+        return connection;
+    }
+    
+    private static JsonObject toGraphQL(JsonObject repository) {
+        JsonObject node = new JsonObject();
+        node.add("databaseId", repository.get("id"));
+        node.add("name", repository.get("name"));
+        node.add("description", repository.get("description"));
+        node.add("url", repository.get("html_url"));
+        node.add("stargazerCount", repository.get("stargazers_count"));
+        node.add("forkCount", repository.get("forks_count"));
+        if (repository.get("language").isJsonNull()) {
+            node.add("primaryLanguage", JsonNull.INSTANCE);
+        } else {
+            JsonObject language = new JsonObject();
+            language.add("name", repository.get("language"));
+            node.add("primaryLanguage", language);
+        }
+        node.add("updatedAt", repository.get("updated_at"));
+        return node;
+    }
+    
+    private String repositoriesJson(int from, int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = from; i < Math.min(from + count, repositoriesPerUser); i++) {
+            if (i > from) {
+                json.append(',');
+            }
+            json.append(repositoryJson[i]);
+        }
+        return json.append(']').toString();
+    }
+    
+    // The same list every time for a given login and relation, spread over the whole population
+    private String accountsJson(String list, int from, int count) {
+        long start = Math.floorMod(list.hashCode(), population);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = from; i < Math.min(from + count, followsPerUser); i++) {
+            if (i > from) {
+                json.append(',');
+            }
+            long index = (start + i * FOLLOW_STRIDE) % population;
+            json.append("{\"login\":\"user").append(index).append("\",\"id\":").append(index + 1)
+                    .append(",\"type\":\"User\"}");
+        }
+        return json.append(']').toString();
+    }
+    
+    private void sendCacheable(HttpExchange exchange, String body) throws IOException {
+        String etag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", "private, max-age=" + maxAgeSeconds);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModified.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        send(exchange, 200, body);
+    }
+    
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+    
+    private void simulateLatency() {
+        sleep(latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0));
+    }
+    
+    private static void sleep(long millis) {
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    // Remaining quota after this request; negative once the window is used up
+    private int takeQuota() {
+        synchronized (quotaLock) {
+            long now = System.currentTimeMillis();
+            if (now - windowStart >= QUOTA_WINDOW_MILLIS) {
+                windowStart = now;
+                used = 0;
+            }
+            used++;
+            return quota - used;
+        }
+    }
+    
+    private long resetEpochSeconds() {
+        synchronized (quotaLock) {
+            return (windowStart + QUOTA_WINDOW_MILLIS) / 1000;
+        }
+    }
+    
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int equals = pair.indexOf('=');
+                if (equals > 0) {
+                    query.put(pair.substring(0, equals), pair.substring(equals + 1));
+                }
+            }
+        }
+        return query;
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.search.bench;
+
+import com.github.search.GitHubJsonDecoder;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Retained heap per cached profile (a user plus one page of repositories), measured with JOL,
+ * for the original mutable beans and for the current compact model.
+ *
+ * Every profile is decoded separately, the way the caches fill up, so strings are not shared
+ * between profiles unless the model shares them on purpose. The legacy classes below are the
+ * beans as they were before the model was made compact.
+ *
+ * Usage: java -cp target/benchmarks.jar com.github.search.bench.ModelFootprint [--profiles 1000]
+ *                                                                             [--repos repos_100.json]
+ */
+public class ModelFootprint {
+    
+    private static final Gson GSON = new Gson();
+    
+    public static void main(String[] args) throws IOException {
+        int profiles = 1000;
+        String repos = Fixtures.REPOS_100;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--profiles" -> profiles = Integer.parseInt(args[i + 1]);
+                case "--repos" -> repos = args[i + 1];
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        byte[] user = Fixtures.load(Fixtures.USER);
+        byte[] repositories = Fixtures.load(repos);
+        
+        Object[][] legacy = new Object[profiles][];
+        Object[][] compact = new Object[profiles][];
+        for (int i = 0; i < profiles; i++) {
+            legacy[i] = new Object[] { LegacyUser.parse(user), LegacyRepository.parseAll(repositories) };
+            compact[i] = new Object[] {
+                GitHubJsonDecoder.decode(new ByteArrayInputStream(user), GitHubJsonDecoder::readUser),
+                GitHubJsonDecoder.decode(new ByteArrayInputStream(repositories), GitHubJsonDecoder::readRepositories)
+            };
+        }
+        int repositoriesPerProfile = ((List<?>) compact[0][1]).size();
+        
+        System.out.printf(Locale.ROOT, "%d profiles, each a user and %d repositories (%s)%n%n",
+                profiles, repositoriesPerProfile, repos);
+        System.out.printf(Locale.ROOT, "%-10s %14s %14s %14s %16s%n",
+                "model", "user (B)", "repos (B)", "profile (B)", "per repo (B)");
+        report("legacy", legacy, profiles, repositoriesPerProfile);
+        report("compact", compact, profiles, repositoriesPerProfile);
+    }
+    
+    private static void report(String label, Object[][] profiles, int count, int repositoriesPerProfile) {
+        Object[] users = new Object[count];
+        Object[] lists = new Object[count];
+        for (int i = 0; i < count; i++) {
+            users[i] = profiles[i][0];
+            lists[i] = profiles[i][1];
+        }
+        // The arrays are passed as varargs roots, so the holders themselves are not counted
+        double userBytes = GraphLayout.parseInstance(users).totalSize() / (double) count;
+        double listBytes = GraphLayout.parseInstance(lists).totalSize() / (double) count;
+        System.out.printf(Locale.ROOT, "%-10s %14.0f %14.0f %14.0f %16.1f%n", label, userBytes, listBytes,
+                userBytes + listBytes, listBytes / repositoriesPerProfile);
+    }
+    
+    private static String string(JsonObject json, String field) {
+        JsonElement value = json.get(field);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+    
+    // The user bean as originally written: every field mutable, dates as strings
+    static final class LegacyUser {
+        String login, name, avatarUrl, bio;
+        int publicRepos, followers, following;
+        String location, blog, company, email, createdAt, htmlUrl;
+        
+        static LegacyUser parse(byte[] body) {
+            JsonObject json = GSON.fromJson(new String(body, StandardCharsets.UTF_8), JsonObject.class);
+            LegacyUser user = new LegacyUser();
+            user.login = string(json, "login");
+            user.name = string(json, "name");
+            user.avatarUrl = string(json, "avatar_url");
+            user.bio = string(json, "bio");
+            user.publicRepos = json.get("public_repos").getAsInt();
+            user.followers = json.get("followers").getAsInt();
+            user.following = json.get("following").getAsInt();
+            user.location = string(json, "location");
+            user.blog = string(json, "blog");
+            user.company = string(json, "company");
+            user.email = string(json, "email");
+            user.createdAt = string(json, "created_at");
+            user.htmlUrl = string(json, "html_url");
+            return user;
+        }
+    }
+    
+    // The repository bean as originally written, one object per repository in an ArrayList
+    static final class LegacyRepository {
+        int id;
+        String name, description, htmlUrl;
+        int stargazersCount, forksCount;
+        String language, updatedAt;
+        
+        static List<LegacyRepository> parseAll(byte[] body) {
+            JsonArray array = GSON.fromJson(new String(body, StandardCharsets.UTF_8), JsonArray.class);
+            List<LegacyRepository> repositories = new ArrayList<>();
+            for (JsonElement element : array) {
+                JsonObject json = element.getAsJsonObject();
+                LegacyRepository repository = new LegacyRepository();
+                repository.id = json.get("id").getAsInt();
+                repository.name = string(json, "name");
+                repository.description = string(json, "description");
+                repository.htmlUrl = string(json, "html_url");
+                repository.stargazersCount = json.get("stargazers_count").getAsInt();
+                repository.forksCount = json.get("forks_count").getAsInt();
+                repository.language = string(json, "language");
+                repository.updatedAt = string(json, "updated_at");
+                repositories.add(repository);
+            }
+            return repositories;
+        }
+    }
+}
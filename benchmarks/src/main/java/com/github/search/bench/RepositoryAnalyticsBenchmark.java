@@ -0,0 +1,64 @@
+package com.github.search.bench;
+
+import com.github.search.GitHubJsonDecoder;
+import com.github.search.GitHubRepository;
+import com.github.search.RepositoryAnalytics;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Ingesting a large account page by page and summarising it. The organisation fixture is
+ * repeated (with fresh ids) up to the requested number of repositories.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryAnalyticsBenchmark {
+    
+    private static final int PAGE_SIZE = 100;
+    
+    @Param({"1000", "20000", "50000"})
+    public int repositories;
+    
+    private List<GitHubRepository> all;
+    private RepositoryAnalytics loaded;
+    
+    @Setup
+    public void setUp() throws IOException {
+        List<GitHubRepository> fixture = GitHubJsonDecoder.decode(
+                new ByteArrayInputStream(Fixtures.load(Fixtures.ORG_REPOS_500)), GitHubJsonDecoder::readRepositories);
+        all = new ArrayList<>(repositories);
+        for (int i = 0; i < repositories; i++) {
+            GitHubRepository source = fixture.get(i % fixture.size());
+            all.add(new GitHubRepository(i, source.getName(), source.getDescription(), source.getHtmlUrl(),
+                    source.getStargazersCount(), source.getForksCount(), source.getLanguage(), source.getUpdatedAt()));
+        }
+        loaded = new RepositoryAnalytics();
+        ingest(loaded);
+    }
+    
+    @Benchmark
+    public RepositoryAnalytics ingestPages() {
+        RepositoryAnalytics analytics = new RepositoryAnalytics();
+        ingest(analytics);
+        return analytics;
+    }
+    
+    @Benchmark
+    public RepositoryAnalytics.Summary summarize() {
+        return loaded.summarize(10);
+    }
+    
+    private void ingest(RepositoryAnalytics analytics) {
+        for (int from = 0; from < all.size(); from += PAGE_SIZE) {
+            analytics.addAll(all.subList(from, Math.min(from + PAGE_SIZE, all.size())));
+        }
+    }
+}
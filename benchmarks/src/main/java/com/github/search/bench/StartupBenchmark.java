@@ -0,0 +1,179 @@
+package com.github.search.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-start times of the desktop app: each run launches it in a fresh JVM with
+ * {@code -Dgithub.startup.benchmark=<login>}, so it searches for that login against an
+ * in-process {@link MockGitHubServer} as soon as its window is up and quits once the profile
+ * is shown. Times are from process launch to the milestones the app prints:
+ * main (JVM up), first-frame (window drawn), services (caches and stores open) and
+ * first-search (profile on screen).
+ *
+ * Each run gets an empty working directory unless --fresh is false, in which case all runs
+ * share one, and after the warm-up the app starts with its stores already populated. The
+ * exit status is 1 when the median time to first frame or first search exceeds the given
+ * limit, so a build can fail on a startup regression.
+ *
+ * Compare runtimes by pointing --java and --jar at the jlink'd image ({@code mvn -Pimage
+ * package}) and passing "-XX:SharedArchiveFile=../target/image/app/app.jsa" in --jvm-args.
+ *
+ * Usage: StartupBenchmark [--runs 10] [--warmup 1] [--jar ../target/github-profile-explorer-1.0.0.jar]
+ *                         [--java $JAVA_HOME/bin/java] [--jvm-args "-Xshare:auto ..."] [--login octocat]
+ *                         [--fresh true] [--latency 20] [--timeout 60]
+ *                         [--max-first-frame 0] [--max-first-search 0]
+ */
+public class StartupBenchmark {
+    
+    private static final String MAIN_CLASS = "com.github.search.Launcher";
+    private static final List<String> MILESTONES = List.of("main", "first-frame", "services", "first-search");
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        int runs = Integer.parseInt(options.getOrDefault("--runs", "10"));
+        int warmup = Integer.parseInt(options.getOrDefault("--warmup", "1"));
+        String jar = options.getOrDefault("--jar", "../target/github-profile-explorer-1.0.0.jar");
+        String java = options.getOrDefault("--java",
+                Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        String jvmArgs = options.getOrDefault("--jvm-args", "").trim();
+        String login = options.getOrDefault("--login", "octocat");
+        boolean fresh = Boolean.parseBoolean(options.getOrDefault("--fresh", "true"));
+        long timeoutSeconds = Long.parseLong(options.getOrDefault("--timeout", "60"));
+        long maxFirstFrame = Long.parseLong(options.getOrDefault("--max-first-frame", "0"));
+        long maxFirstSearch = Long.parseLong(options.getOrDefault("--max-first-search", "0"));
+        
+        if (!new File(jar).isFile()) {
+            System.err.println("No app jar at " + jar + " (run \"mvn package\" in the parent directory, or pass --jar)");
+            System.exit(2);
+        }
+        
+        MockGitHubServer mock = new MockGitHubServer(0)
+                .latency(Long.parseLong(options.getOrDefault("--latency", "20")), 0)
+                .start();
+        
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        if (!jvmArgs.isEmpty()) {
+            command.addAll(Arrays.asList(jvmArgs.split("\\s+")));
+        }
+        command.add("-Dgithub.api.base=" + mock.getBaseUrl());
+        command.add("-Dgithub.startup.benchmark=" + login);
+        command.add("-cp");
+        command.add(new File(jar).getAbsolutePath());
+        command.add(MAIN_CLASS);
+        System.err.println("Launching " + String.join(" ", command));
+        
+        Map<String, List<Long>> results = new HashMap<>();
+        Path shared = fresh ? null : Files.createTempDirectory("startup-bench");
+        int failed = 0;
+        for (int run = 0; run < warmup + runs; run++) {
+            boolean measured = run >= warmup;
+            Path directory = shared != null ? shared : Files.createTempDirectory("startup-bench");
+            Map<String, Long> times = launch(command, directory, timeoutSeconds);
+            if (!times.containsKey("first-search")) {
+                failed++;
+                System.err.printf(Locale.ROOT, "run %d: no first search (%s), app output in %s%n",
+                        run + 1, times.containsKey("search-failed") ? "search failed" : "timed out or crashed",
+                        directory.resolve("app.log"));
+                continue;
+            }
+            StringBuilder line = new StringBuilder(measured ? "run " + (run - warmup + 1) : "warm-up");
+            for (String milestone : MILESTONES) {
+                Long millis = times.get(milestone);
+                if (millis != null) {
+                    line.append(String.format(Locale.ROOT, "  %s %d ms", milestone, millis));
+                    if (measured) {
+                        results.computeIfAbsent(milestone, k -> new ArrayList<>()).add(millis);
+                    }
+                }
+            }
+            System.err.println(line);
+        }
+        mock.close();
+        
+        System.err.printf(Locale.ROOT, "%-14s %8s %8s %8s  (ms from launch, %d runs, %d failed)%n",
+                "", "median", "min", "max", runs, failed);
+        for (String milestone : MILESTONES) {
+            List<Long> samples = results.get(milestone);
+            if (samples != null) {
+                Collections.sort(samples);
+                System.err.printf(Locale.ROOT, "%-14s %8d %8d %8d%n", milestone, median(samples),
+                        samples.get(0), samples.get(samples.size() - 1));
+            }
+        }
+        
+        boolean regressed = failed > 0
+                || exceeds("first-frame", results.get("first-frame"), maxFirstFrame)
+                || exceeds("first-search", results.get("first-search"), maxFirstSearch);
+        System.exit(regressed ? 1 : 0);
+    }
+    
+    // Milestone -> millis since the process was started, as printed by the app on stdout
+    private static Map<String, Long> launch(List<String> command, Path directory, long timeoutSeconds)
+            throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectError(directory.resolve("app.log").toFile());
+        long launched = System.currentTimeMillis();
+        Process process = builder.start();
+        Map<String, Long> times = new HashMap<>();
+        Thread reader = Thread.ofVirtual().start(() -> {
+            try (BufferedReader out = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = out.readLine()) != null) {
+                    String[] parts = line.split(" ");
+                    if (parts.length == 3 && parts[0].equals("startup")) {
+                        synchronized (times) {
+                            times.put(parts[1], Long.parseLong(parts[2]) - launched);
+                        }
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                // The process died; whatever was read so far is the result
+            }
+        });
+        if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+        reader.join();
+        synchronized (times) {
+            return new HashMap<>(times);
+        }
+    }
+    
+    private static long median(List<Long> sorted) {
+        int middle = sorted.size() / 2;
+        return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+    }
+    
+    private static boolean exceeds(String milestone, List<Long> samples, long limit) {
+        if (limit <= 0 || samples == null || samples.isEmpty()) {
+            return false;
+        }
+        long median = median(samples);
+        if (median > limit) {
+            System.err.printf(Locale.ROOT, "Regression: median %s %d ms is over the %d ms limit%n",
+                    milestone, median, limit);
+            return true;
+        }
+        return false;
+    }
+}
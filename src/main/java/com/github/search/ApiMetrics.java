@@ -0,0 +1,218 @@
+package com.github.search;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Where the time goes in API calls and rendering.
+ *
+ * Each endpoint has one histogram per stage: waiting in the rate-limit queue, time to the
+ * response headers (this includes connecting; java.net.http does not report connect time on
+ * its own), reading the body off the socket, parsing it, and the whole call. Failures are
+ * counted by status code, alongside retries, hedged requests and the circuit breaker's state.
+ * Recording never allocates.
+ */
+public class ApiMetrics implements ApiMetricsMXBean {
+    
+    public enum Endpoint { USER, REPOSITORIES, FOLLOWS, GRAPHQL, SEARCH }
+    
+    public enum Stage { QUEUE, FIRST_BYTE, DOWNLOAD, PARSE, TOTAL }
+    
+    public enum View { USER, REPOSITORIES }
+    
+    private static final String OBJECT_NAME = "com.github.search:type=ApiMetrics";
+    private static final int MAX_STATUS = 600;
+    
+    private final RateLimitScheduler scheduler;
+    private final CircuitBreaker circuitBreaker;
+    private final LatencyHistogram[][] api = new LatencyHistogram[Endpoint.values().length][Stage.values().length];
+    private final LatencyHistogram[] render = new LatencyHistogram[View.values().length];
+    private final AtomicLongArray statusErrors = new AtomicLongArray(MAX_STATUS);
+    private final AtomicLong networkErrors = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    
+    public ApiMetrics(RateLimitScheduler scheduler, CircuitBreaker circuitBreaker) {
+        this.scheduler = scheduler;
+        this.circuitBreaker = circuitBreaker;
+        for (LatencyHistogram[] stages : api) {
+            for (int i = 0; i < stages.length; i++) {
+                stages[i] = new LatencyHistogram();
+            }
+        }
+        for (int i = 0; i < render.length; i++) {
+            render[i] = new LatencyHistogram();
+        }
+    }
+    
+    public void record(Endpoint endpoint, Stage stage, long nanos) {
+        api[endpoint.ordinal()][stage.ordinal()].recordNanos(nanos);
+    }
+    
+    public void recordRender(View view, long nanos) {
+        render[view.ordinal()].recordNanos(nanos);
+    }
+    
+    public void recordStatus(int statusCode) {
+        if (statusCode >= 0 && statusCode < MAX_STATUS) {
+            statusErrors.incrementAndGet(statusCode);
+        }
+    }
+    
+    public void recordNetworkError() {
+        networkErrors.incrementAndGet();
+    }
+    
+    public void recordRetry() {
+        retries.incrementAndGet();
+    }
+    
+    public void recordHedge() {
+        hedges.incrementAndGet();
+    }
+    
+    public LatencyHistogram histogram(Endpoint endpoint, Stage stage) {
+        return api[endpoint.ordinal()][stage.ordinal()];
+    }
+    
+    public LatencyHistogram histogram(View view) {
+        return render[view.ordinal()];
+    }
+    
+    /** Registers with the platform MBean server; a second registration is ignored. */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Another service instance got there first
+        } catch (JMException e) {
+            System.err.println("Failed to register API metrics: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public Map<String, LatencyHistogram.Snapshot> getLatencies() {
+        Map<String, LatencyHistogram.Snapshot> latencies = new LinkedHashMap<>();
+        for (Endpoint endpoint : Endpoint.values()) {
+            for (Stage stage : Stage.values()) {
+                latencies.put(name(endpoint) + "." + name(stage), histogram(endpoint, stage).snapshot());
+            }
+        }
+        for (View view : View.values()) {
+            latencies.put("render." + name(view), histogram(view).snapshot());
+        }
+        return latencies;
+    }
+    
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> errors = new LinkedHashMap<>();
+        for (int status = 0; status < MAX_STATUS; status++) {
+            long count = statusErrors.get(status);
+            if (count > 0) {
+                errors.put(Integer.toString(status), count);
+            }
+        }
+        if (networkErrors.get() > 0) {
+            errors.put("network", networkErrors.get());
+        }
+        return errors;
+    }
+    
+    @Override
+    public int getRateLimitLimit() {
+        return scheduler.getStatus().limit();
+    }
+    
+    @Override
+    public int getRateLimitRemaining() {
+        return scheduler.getStatus().remaining();
+    }
+    
+    @Override
+    public long getRateLimitResetEpochSeconds() {
+        return scheduler.getStatus().resetEpochSeconds();
+    }
+    
+    @Override
+    public int getQueueDepth() {
+        return scheduler.getStatus().queueDepth();
+    }
+    
+    @Override
+    public long getRetryCount() {
+        return retries.get();
+    }
+    
+    @Override
+    public long getHedgeCount() {
+        return hedges.get();
+    }
+    
+    @Override
+    public String getCircuitState() {
+        return circuitBreaker.getState().name();
+    }
+    
+    @Override
+    public long getCircuitRejectedCount() {
+        return circuitBreaker.getRejectedCount();
+    }
+    
+    @Override
+    public void reset() {
+        for (LatencyHistogram[] stages : api) {
+            for (LatencyHistogram histogram : stages) {
+                histogram.reset();
+            }
+        }
+        for (LatencyHistogram histogram : render) {
+            histogram.reset();
+        }
+        for (int status = 0; status < MAX_STATUS; status++) {
+            statusErrors.set(status, 0);
+        }
+        networkErrors.set(0);
+        retries.set(0);
+        hedges.set(0);
+    }
+    
+    /** Plain-text table of everything above, for the diagnostics panel. */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "%-24s %7s %9s %9s %9s %9s%n",
+                "stage (ms)", "count", "p50", "p90", "p99", "max"));
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : getLatencies().entrySet()) {
+            LatencyHistogram.Snapshot s = entry.getValue();
+            text.append(String.format(Locale.ROOT, "%-24s %7d %9.1f %9.1f %9.1f %9.1f%n", entry.getKey(),
+                    s.getCount(), s.getP50Micros() / 1000.0, s.getP90Micros() / 1000.0,
+                    s.getP99Micros() / 1000.0, s.getMaxMicros() / 1000.0));
+        }
+        RateLimitScheduler.Status status = scheduler.getStatus();
+        text.append(String.format(Locale.ROOT, "%nrate limit: %d of %d left, resets at %d, %d queued%n",
+                status.remaining(), status.limit(), status.resetEpochSeconds(), status.queueDepth()));
+        text.append("errors: ").append(getErrorCounts().isEmpty() ? "none" : getErrorCounts()).append('\n');
+        text.append(String.format(Locale.ROOT, "retries: %d, hedged: %d%ncircuit: %s, %.0f%% of recent calls failed, "
+                        + "opened %d times, %d calls refused%n", getRetryCount(), getHedgeCount(), getCircuitState(),
+                circuitBreaker.getFailureRate() * 100, circuitBreaker.getTimesOpened(), getCircuitRejectedCount()));
+        return text.toString();
+    }
+    
+    private static String name(Enum<?> value) {
+        String[] words = value.name().toLowerCase(Locale.ROOT).split("_");
+        StringBuilder name = new StringBuilder(words[0]);
+        for (int i = 1; i < words.length; i++) {
+            name.append(Character.toUpperCase(words[i].charAt(0))).append(words[i].substring(1));
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.search;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link ApiMetrics}, registered as {@code com.github.search:type=ApiMetrics}.
+ */
+public interface ApiMetricsMXBean {
+    
+    /** Latency summaries keyed by "endpoint.stage", e.g. "user.firstByte" or "render.user". */
+    Map<String, LatencyHistogram.Snapshot> getLatencies();
+    
+    /** Failed responses by HTTP status code, plus "network" for requests that got no response. */
+    Map<String, Long> getErrorCounts();
+    
+    int getRateLimitLimit();
+    
+    int getRateLimitRemaining();
+    
+    long getRateLimitResetEpochSeconds();
+    
+    int getQueueDepth();
+    
+    long getRetryCount();
+    
+    long getHedgeCount();
+    
+    /** CLOSED, OPEN or HALF_OPEN. */
+    String getCircuitState();
+    
+    long getCircuitRejectedCount();
+    
+    void reset();
+}
@@ -0,0 +1,14 @@
+package com.github.search;
+
+/** No response headers, or no complete body, within the configured timeout. */
+public class ApiTimeoutException extends GitHubApiException {
+    
+    public ApiTimeoutException(String message, Throwable cause) {
+        super(message, -1, cause);
+    }
+    
+    @Override
+    public boolean isRetryable() {
+        return true;
+    }
+}
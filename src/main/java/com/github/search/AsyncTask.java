@@ -0,0 +1,38 @@
+package com.github.search;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import javafx.concurrent.Task;
+
+/**
+ * A JavaFX {@link Task} backed by one of the async API calls. Cancelling the task also
+ * cancels the underlying future, so a superseded search stops its HTTP requests too.
+ */
+public class AsyncTask<T> extends Task<T> {
+    
+    private final Supplier<CompletableFuture<T>> request;
+    private volatile CompletableFuture<T> future;
+    
+    public AsyncTask(Supplier<CompletableFuture<T>> request) {
+        this.request = request;
+    }
+    
+    @Override
+    protected T call() throws Exception {
+        future = request.get();
+        if (isCancelled()) {
+            future.cancel(true);
+        }
+        return GitHubApiService.await(future);
+    }
+    
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        CompletableFuture<T> running = future;
+        if (running != null) {
+            running.cancel(true);
+        }
+        return cancelled;
+    }
+}
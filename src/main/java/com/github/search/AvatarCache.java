@@ -0,0 +1,335 @@
+package com.github.search;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+import javafx.scene.image.Image;
+
+/**
+ * Loads avatars off the FX thread and keeps them around.
+ *
+ * Decoded images are held in memory up to a budget of pixel bytes, raw downloads are kept
+ * on disk, and decoding happens at the size the view needs rather than the full upload size.
+ * Concurrent requests for the same avatar share one download and decode.
+ *
+ * Avatar URLs stay the same when a user uploads a new picture, so a download is trusted for
+ * a day and then revalidated with its ETag / Last-Modified; a 304 costs no body. If the
+ * server cannot be reached the stale copy is shown. The directory is kept under a byte
+ * budget by dropping the least recently used files (by modification time, which is bumped
+ * on every use), and files unused for a month are removed when the cache opens.
+ */
+public class AvatarCache {
+    
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final long REVALIDATE_AFTER_MILLIS = 24 * 60 * 60 * 1000L;
+    private static final long EXPIRE_AFTER_MILLIS = 30 * 24 * 60 * 60 * 1000L;
+    // Until the headers, and for the whole download; a stalled host must not pin a loader thread
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration DOWNLOAD_TIMEOUT = Duration.ofSeconds(30);
+    
+    private final HttpClient httpClient;
+    private final Path diskDirectory;
+    private final long maxPixelBytes;
+    private final long maxDiskBytes;
+    private final Executor executor;
+    private final LinkedHashMap<String, Image> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final SingleFlight<String, Image> loads = new SingleFlight<>();
+    private long pixelBytes;
+    // Guarded by diskDirectory
+    private long diskBytes;
+    
+    public AvatarCache(HttpClient httpClient, Path diskDirectory, long maxPixelBytes, long maxDiskBytes,
+                       Executor executor) {
+        this.httpClient = httpClient;
+        this.diskDirectory = diskDirectory;
+        this.maxPixelBytes = maxPixelBytes;
+        this.maxDiskBytes = maxDiskBytes;
+        this.executor = executor;
+        try {
+            Files.createDirectories(diskDirectory);
+        } catch (IOException e) {
+            System.err.println("Failed to create avatar cache directory: " + e.getMessage());
+        }
+        executor.execute(() -> pruneDisk(EXPIRE_AFTER_MILLIS));
+    }
+    
+    /** The decoded image if it is already in memory, otherwise null. Safe to call on the FX thread. */
+    public Image getIfPresent(String url, int size) {
+        synchronized (memory) {
+            return memory.get(key(url, size));
+        }
+    }
+    
+    public CompletableFuture<Image> load(String url, int size) {
+        Image cached = getIfPresent(url, size);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        String key = key(url, size);
+        return loads.execute(key, () -> CompletableFuture.supplyAsync(() -> {
+            try {
+                Path file = fetchToDisk(url, size);
+                // Decode straight to the display size; synchronous here since we are already off the FX thread
+                Image image = new Image(file.toUri().toString(), size, size, true, true, false);
+                if (image.isError()) {
+                    throw new IOException("Could not decode avatar", image.getException());
+                }
+                remember(key, image);
+                return image;
+            } catch (IOException | InterruptedException e) {
+                throw new CompletionException(e);
+            }
+        }, executor));
+    }
+    
+    private Path fetchToDisk(String url, int size) throws IOException, InterruptedException {
+        String sizedUrl = sizedUrl(url, size);
+        String name = hash(sizedUrl);
+        Path file = diskDirectory.resolve(name + ".img");
+        Path metaFile = diskDirectory.resolve(name + ".meta");
+        boolean onDisk = Files.exists(file);
+        Validators cached = onDisk ? readValidators(metaFile) : null;
+        long now = System.currentTimeMillis();
+        if (onDisk && now - cached.validatedAt() < REVALIDATE_AFTER_MILLIS) {
+            touch(file, now);
+            return file;
+        }
+        
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(sizedUrl))
+                .header("User-Agent", "GitHub-Profile-Explorer")
+                .timeout(REQUEST_TIMEOUT);
+        if (onDisk && cached.etag() != null) {
+            request.header("If-None-Match", cached.etag());
+        }
+        if (onDisk && cached.lastModified() != null) {
+            request.header("If-Modified-Since", cached.lastModified());
+        }
+        HttpResponse<byte[]> response;
+        try {
+            response = download(request.build());
+        } catch (IOException e) {
+            if (onDisk) {
+                return file;
+            }
+            throw e;
+        }
+        if (response.statusCode() == 304 && onDisk) {
+            writeValidators(metaFile, new Validators(now, cached.etag(), cached.lastModified()));
+            touch(file, now);
+            return file;
+        }
+        if (response.statusCode() != 200) {
+            if (onDisk) {
+                return file;
+            }
+            throw new IOException("HTTP Error: " + response.statusCode());
+        }
+        
+        long previousSize = onDisk ? Files.size(file) : 0;
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, response.body());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writeValidators(metaFile, new Validators(now, response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null)));
+        boolean overBudget;
+        synchronized (diskDirectory) {
+            diskBytes += response.body().length - previousSize;
+            overBudget = diskBytes > maxDiskBytes;
+        }
+        if (overBudget) {
+            pruneDisk(Long.MAX_VALUE);
+        }
+        return file;
+    }
+    
+    // The request timeout only covers the headers, so the body is bounded by a deadline of its own
+    private HttpResponse<byte[]> download(HttpRequest request) throws IOException, InterruptedException {
+        CompletableFuture<HttpResponse<byte[]>> exchange = httpClient.sendAsync(request,
+                HttpResponse.BodyHandlers.ofByteArray());
+        try {
+            return exchange.get(DOWNLOAD_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            exchange.cancel(true);
+            throw new HttpTimeoutException("Avatar download timed out: " + request.uri());
+        } catch (InterruptedException e) {
+            exchange.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+    
+    // Drops files unused for longer than maxIdleMillis, then the least recently used ones until
+    // the directory fits the budget. The file just written is the newest, so it survives.
+    private void pruneDisk(long maxIdleMillis) {
+        synchronized (diskDirectory) {
+            List<Path> files = new ArrayList<>();
+            try (Stream<Path> listing = Files.list(diskDirectory)) {
+                listing.forEach(files::add);
+            } catch (IOException e) {
+                System.err.println("Failed to list avatar cache: " + e.getMessage());
+                return;
+            }
+            
+            long now = System.currentTimeMillis();
+            List<Path> images = new ArrayList<>();
+            Map<Path, Long> usedAt = new LinkedHashMap<>();
+            long total = 0;
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    if (name.endsWith(".tmp")) {
+                        Files.deleteIfExists(file);
+                    } else if (name.endsWith(".img")) {
+                        long modified = Files.getLastModifiedTime(file).toMillis();
+                        if (now - modified > maxIdleMillis) {
+                            delete(file);
+                        } else {
+                            images.add(file);
+                            usedAt.put(file, modified);
+                            total += Files.size(file);
+                        }
+                    }
+                } catch (IOException e) {
+                    // Deleted or in use by a concurrent load; looked at again next time
+                }
+            }
+            
+            images.sort(Comparator.comparing(usedAt::get));
+            for (Iterator<Path> oldest = images.iterator(); total > maxDiskBytes && oldest.hasNext(); ) {
+                Path file = oldest.next();
+                try {
+                    long size = Files.size(file);
+                    delete(file);
+                    total -= size;
+                } catch (IOException e) {
+                    // Still open on some platforms; tried again on the next prune
+                }
+            }
+            diskBytes = total;
+        }
+    }
+    
+    private static void delete(Path image) throws IOException {
+        Files.deleteIfExists(image);
+        String name = image.getFileName().toString();
+        Files.deleteIfExists(image.resolveSibling(name.substring(0, name.length() - ".img".length()) + ".meta"));
+    }
+    
+    // Marks the file as recently used for the least-recently-used pruning
+    private static void touch(Path file, long now) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+        } catch (IOException e) {
+            // Only affects which avatar is pruned first
+        }
+    }
+    
+    // A missing or unreadable sidecar (e.g. a file cached before validators were kept) means revalidate now
+    private static Validators readValidators(Path metaFile) {
+        try {
+            List<String> lines = Files.readAllLines(metaFile, StandardCharsets.UTF_8);
+            return new Validators(Long.parseLong(lines.get(0)), emptyToNull(lines.get(1)), emptyToNull(lines.get(2)));
+        } catch (IOException | RuntimeException e) {
+            return new Validators(0, null, null);
+        }
+    }
+    
+    private static void writeValidators(Path metaFile, Validators validators) {
+        try {
+            Files.write(metaFile, List.of(Long.toString(validators.validatedAt()),
+                    validators.etag() != null ? validators.etag() : "",
+                    validators.lastModified() != null ? validators.lastModified() : ""), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // The next load just revalidates sooner
+        }
+    }
+    
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+    
+    private void remember(String key, Image image) {
+        long weight = (long) image.getWidth() * (long) image.getHeight() * BYTES_PER_PIXEL;
+        synchronized (memory) {
+            Image previous = memory.put(key, image);
+            if (previous != null) {
+                pixelBytes -= (long) previous.getWidth() * (long) previous.getHeight() * BYTES_PER_PIXEL;
+            }
+            pixelBytes += weight;
+            Iterator<Map.Entry<String, Image>> eldest = memory.entrySet().iterator();
+            while (pixelBytes > maxPixelBytes && eldest.hasNext()) {
+                Map.Entry<String, Image> candidate = eldest.next();
+                if (candidate.getValue() == image) {
+                    break;
+                }
+                Image evicted = candidate.getValue();
+                pixelBytes -= (long) evicted.getWidth() * (long) evicted.getHeight() * BYTES_PER_PIXEL;
+                eldest.remove();
+            }
+        }
+    }
+    
+    public long getPixelBytes() {
+        synchronized (memory) {
+            return pixelBytes;
+        }
+    }
+    
+    public long getDiskBytes() {
+        synchronized (diskDirectory) {
+            return diskBytes;
+        }
+    }
+    
+    // avatars.githubusercontent.com scales server-side with the s parameter; ask for 2x for HiDPI screens
+    private static String sizedUrl(String url, int size) {
+        if (!url.contains("avatars.githubusercontent.com") || url.matches(".*[?&]s=.*")) {
+            return url;
+        }
+        return url + (url.contains("?") ? "&" : "?") + "s=" + (size * 2);
+    }
+    
+    private static String key(String url, int size) {
+        return url + "@" + size;
+    }
+    
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private record Validators(long validatedAt, String etag, String lastModified) {}
+}
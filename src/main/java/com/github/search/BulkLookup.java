@@ -0,0 +1,311 @@
+package com.github.search;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless batch mode: looks up every username from a file (or stdin) on virtual threads
+ * and writes one JSON line per user as soon as it is done.
+ *
+ * The output file doubles as the checkpoint: on restart, users that already have a
+ * successful or not-found record are skipped, so a crashed run can simply be re-run.
+ *
+ * With GraphQL enabled (see {@link GitHubApiService}), users are looked up in batches of
+ * whole profiles, and the concurrency limit applies to batches instead of single users.
+ *
+ * Usage: BulkLookup --input users.txt|- [--output results.jsonl] [--concurrency 16] [--repos 6]
+ */
+public class BulkLookup {
+    
+    private static final long PROGRESS_INTERVAL_SECONDS = 5;
+    
+    private final GitHubApiService apiService;
+    private final Gson gson = new Gson();
+    private final int concurrency;
+    private final int repositoryLimit;
+    
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    
+    public BulkLookup(GitHubApiService apiService, int concurrency, int repositoryLimit) {
+        this.apiService = apiService;
+        this.concurrency = concurrency;
+        this.repositoryLimit = repositoryLimit;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        String input = null;
+        String output = "bulk_results.jsonl";
+        int concurrency = 16;
+        int repos = 6;
+        
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--input" -> input = args[++i];
+                case "--output" -> output = args[++i];
+                case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                case "--repos" -> repos = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println("Unknown option: " + args[i]);
+                    printUsage();
+                    System.exit(2);
+                }
+            }
+        }
+        if (input == null) {
+            printUsage();
+            System.exit(2);
+        }
+        
+        BulkLookup lookup = new BulkLookup(new GitHubApiService(), concurrency, repos);
+        try (BufferedReader reader = "-".equals(input)
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8)) {
+            lookup.run(reader, Paths.get(output));
+        }
+    }
+    
+    private static void printUsage() {
+        System.err.println("Usage: BulkLookup --input <file|-> [--output results.jsonl] "
+                + "[--concurrency 16] [--repos 6]");
+    }
+    
+    public void run(BufferedReader usernames, Path output) throws IOException, InterruptedException {
+        Set<String> done = loadCheckpoint(output);
+        if (!done.isEmpty()) {
+            System.err.println("Resuming: " + done.size() + " users already recorded in " + output);
+        }
+        
+        long startNanos = System.nanoTime();
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bulk-lookup-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        progress.scheduleAtFixedRate(() -> reportProgress(startNanos),
+                PROGRESS_INTERVAL_SECONDS, PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        
+        Semaphore permits = new Semaphore(concurrency);
+        boolean batched = apiService.isGraphQLEnabled();
+        int batchSize = GitHubGraphQL.batchSize(repositoryLimit);
+        List<String> batch = new ArrayList<>();
+        try (Writer writer = openForAppend(output);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            String line;
+            while ((line = usernames.readLine()) != null) {
+                String username = line.trim();
+                if (username.isEmpty() || username.startsWith("#")) {
+                    continue;
+                }
+                if (!done.add(username.toLowerCase(Locale.ROOT))) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                if (batched) {
+                    batch.add(username);
+                    if (batch.size() == batchSize) {
+                        submitBatch(batch, writer, executor, permits);
+                        batch = new ArrayList<>();
+                    }
+                    continue;
+                }
+                permits.acquire();
+                executor.submit(() -> {
+                    try {
+                        write(writer, lookup(username));
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            if (!batch.isEmpty()) {
+                submitBatch(batch, writer, executor, permits);
+            }
+            // Closing the executor waits for the outstanding lookups
+        } finally {
+            progress.shutdownNow();
+        }
+        reportProgress(startNanos);
+    }
+    
+    // One request per batch; its records are written as each user's result comes in
+    private void submitBatch(List<String> usernames, Writer writer, ExecutorService executor, Semaphore permits)
+            throws InterruptedException {
+        permits.acquire();
+        Map<String, CompletableFuture<GitHubProfile>> profiles = apiService.getProfilesAsync(usernames,
+                repositoryLimit, RateLimitScheduler.Priority.BACKGROUND);
+        executor.submit(() -> {
+            try {
+                for (Map.Entry<String, CompletableFuture<GitHubProfile>> profile : profiles.entrySet()) {
+                    write(writer, lookup(profile.getKey(), profile.getValue()));
+                }
+            } finally {
+                permits.release();
+            }
+        });
+    }
+    
+    private JsonObject lookup(String username) {
+        try {
+            GitHubUser user = apiService.getUserAsync(username, RateLimitScheduler.Priority.BACKGROUND).get();
+            List<GitHubRepository> repositories = repositoryLimit > 0
+                    ? apiService.getUserRepositoriesAsync(username, repositoryLimit,
+                            RateLimitScheduler.Priority.BACKGROUND).get()
+                    : null;
+            return found(username, user, repositories);
+        } catch (Exception e) {
+            return failed(username, e);
+        }
+    }
+    
+    private JsonObject lookup(String username, CompletableFuture<GitHubProfile> profile) {
+        try {
+            GitHubProfile value = profile.get();
+            return found(username, value.getUser(), repositoryLimit > 0 ? value.getRepositories() : null);
+        } catch (Exception e) {
+            return failed(username, e);
+        }
+    }
+    
+    private JsonObject found(String username, GitHubUser user, List<GitHubRepository> repositories) {
+        JsonObject record = new JsonObject();
+        record.addProperty("login", username);
+        record.addProperty("status", "ok");
+        record.add("user", toJson(user));
+        if (repositories != null) {
+            JsonArray array = new JsonArray(repositories.size());
+            for (GitHubRepository repository : repositories) {
+                array.add(toJson(repository));
+            }
+            record.add("repositories", array);
+        }
+        completed.incrementAndGet();
+        return record;
+    }
+    
+    private JsonObject failed(String username, Exception e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        String message = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+        JsonObject record = new JsonObject();
+        record.addProperty("login", username);
+        record.addProperty("status", cause instanceof UserNotFoundException ? "not_found" : "error");
+        record.addProperty("error", message);
+        failed.incrementAndGet();
+        return record;
+    }
+    
+    // Same field names as the original bean serialisation, with dates back in ISO form
+    private static JsonObject toJson(GitHubUser user) {
+        JsonObject json = new JsonObject();
+        json.addProperty("login", user.getLogin());
+        json.addProperty("name", user.getName());
+        json.addProperty("avatarUrl", user.getAvatarUrl());
+        json.addProperty("bio", user.getBio());
+        json.addProperty("publicRepos", user.getPublicRepos());
+        json.addProperty("followers", user.getFollowers());
+        json.addProperty("following", user.getFollowing());
+        json.addProperty("location", user.getLocation());
+        json.addProperty("blog", user.getBlog());
+        json.addProperty("company", user.getCompany());
+        json.addProperty("email", user.getEmail());
+        json.addProperty("createdAt", user.getCreatedAt());
+        json.addProperty("htmlUrl", user.getHtmlUrl());
+        return json;
+    }
+    
+    private static JsonObject toJson(GitHubRepository repository) {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", repository.getId());
+        json.addProperty("name", repository.getName());
+        json.addProperty("description", repository.getDescription());
+        json.addProperty("htmlUrl", repository.getHtmlUrl());
+        json.addProperty("stargazersCount", repository.getStargazersCount());
+        json.addProperty("forksCount", repository.getForksCount());
+        json.addProperty("language", repository.getLanguage());
+        json.addProperty("updatedAt", repository.getUpdatedAt());
+        return json;
+    }
+    
+    private void write(Writer writer, JsonObject record) {
+        String json = gson.toJson(record);
+        synchronized (writer) {
+            try {
+                writer.write(json);
+                writer.write('\n');
+                // Flushed per record so the file is a usable checkpoint at any moment
+                writer.flush();
+            } catch (IOException e) {
+                System.err.println("Failed to write result for " + record.get("login") + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    // Users with a final answer (found or definitely not found) are done; transient errors are retried
+    private Set<String> loadCheckpoint(Path output) throws IOException {
+        Set<String> done = new HashSet<>();
+        if (!Files.exists(output)) {
+            return done;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(output, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    JsonObject record = gson.fromJson(line, JsonObject.class);
+                    String status = record.get("status").getAsString();
+                    if ("ok".equals(status) || "not_found".equals(status)) {
+                        done.add(record.get("login").getAsString().toLowerCase(Locale.ROOT));
+                    }
+                } catch (RuntimeException e) {
+                    // Torn last line from a crash; that user is simply looked up again
+                }
+            }
+        }
+        return done;
+    }
+    
+    private static Writer openForAppend(Path output) throws IOException {
+        boolean needsNewline = false;
+        if (Files.exists(output) && Files.size(output) > 0) {
+            try (RandomAccessFile file = new RandomAccessFile(output.toFile(), "r")) {
+                file.seek(file.length() - 1);
+                needsNewline = file.read() != '\n';
+            }
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(output.toFile(), true), StandardCharsets.UTF_8));
+        if (needsNewline) {
+            // Terminate a torn record so the next one starts on its own line
+            writer.write('\n');
+        }
+        return writer;
+    }
+    
+    private void reportProgress(long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        long processed = completed.get() + failed.get();
+        RateLimitScheduler.Status quota = apiService.getRateLimitStatus();
+        System.err.printf("Processed %d (%d ok, %d failed, %d skipped) in %.1fs, %.1f users/s, quota remaining %d%n",
+                processed, completed.get(), failed.get(), skipped.get(), seconds,
+                seconds > 0 ? processed / seconds : 0.0, quota.remaining());
+    }
+}
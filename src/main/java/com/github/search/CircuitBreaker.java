@@ -0,0 +1,136 @@
+package com.github.search;
+
+/**
+ * Stops sending requests to an upstream that keeps failing.
+ *
+ * The outcomes of the last {@code windowSize} calls are kept in a ring. Once at least
+ * {@code minimumCalls} of them are recorded and the failing share reaches the threshold, the
+ * breaker opens and every call is refused at once for {@code openMillis}. After that it is
+ * half open: one trial call goes through, and its outcome closes the breaker again or reopens
+ * it. Only signs of an unhealthy upstream (5xx, timeouts, dropped connections) count as
+ * failures; a 404 is a perfectly healthy answer.
+ */
+public class CircuitBreaker {
+    
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+    
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    
+    private int recorded;
+    private int next;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long timesOpened;
+    private long rejected;
+    
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openMillis) {
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+    }
+    
+    public static CircuitBreaker defaults() {
+        return new CircuitBreaker(50, 20, 0.5, 30_000);
+    }
+    
+    /** Whether a call may go ahead now; every permitted call must be followed by one of the on* methods. */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+    
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            state = State.CLOSED;
+            return;
+        }
+        record(false);
+    }
+    
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+            open();
+        }
+    }
+    
+    /** The permitted call ended without telling anything about the upstream (e.g. it was cancelled). */
+    public synchronized void onIgnored() {
+        trialInFlight = false;
+    }
+    
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+    
+    /** When an open breaker lets the next trial call through, in epoch millis. */
+    public synchronized long getRetryAtMillis() {
+        return openedAt + openMillis;
+    }
+    
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0 : failures / (double) recorded;
+    }
+    
+    public synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+    
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+    
+    private void record(boolean failed) {
+        if (recorded == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+    
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        trialInFlight = false;
+        timesOpened++;
+        reset();
+    }
+    
+    private void reset() {
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        trialInFlight = false;
+    }
+}
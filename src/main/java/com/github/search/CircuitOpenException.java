@@ -0,0 +1,19 @@
+package com.github.search;
+
+import java.time.Instant;
+
+/** Refused without sending: too many recent calls failed and the circuit breaker is open. */
+public class CircuitOpenException extends GitHubApiException {
+    
+    private final long retryAtMillis;
+    
+    public CircuitOpenException(long retryAtMillis) {
+        super("GitHub API unavailable, not retrying until " + Instant.ofEpochMilli(retryAtMillis), -1);
+        this.retryAtMillis = retryAtMillis;
+    }
+    
+    /** When the breaker will let a trial request through, in epoch millis. */
+    public long getRetryAtMillis() {
+        return retryAtMillis;
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.search;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.layout.StackPane;
+import javafx.scene.text.Font;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import javafx.util.Duration;
+
+/**
+ * Small always-on-top window with the live {@link ApiMetrics} table, refreshed every second
+ * while it is open. Toggled with F12.
+ */
+public class DiagnosticsWindow {
+    
+    private final ApiMetrics metrics;
+    private final Stage stage = new Stage();
+    private final Label text = new Label();
+    private final Timeline refresh;
+    
+    public DiagnosticsWindow(ApiMetrics metrics, Window owner) {
+        this.metrics = metrics;
+        text.setFont(Font.font("Monospaced", 12));
+        StackPane root = new StackPane(text);
+        root.setPadding(new Insets(10));
+        stage.initOwner(owner);
+        stage.setAlwaysOnTop(true);
+        stage.setTitle("Diagnostics");
+        stage.setScene(new Scene(root));
+        
+        refresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> update()));
+        refresh.setCycleCount(Timeline.INDEFINITE);
+        stage.setOnHidden(e -> refresh.stop());
+    }
+    
+    public void toggle() {
+        if (stage.isShowing()) {
+            stage.hide();
+            return;
+        }
+        update();
+        stage.show();
+        stage.sizeToScene();
+        refresh.play();
+    }
+    
+    private void update() {
+        text.setText(metrics.format());
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.search;
+
+import java.util.List;
+
+public class FollowPage {
+    private final int page;
+    private final List<GitHubAccount> accounts;
+    private final boolean hasNext;
+    
+    public FollowPage(int page, List<GitHubAccount> accounts, boolean hasNext) {
+        this.page = page;
+        this.accounts = accounts;
+        this.hasNext = hasNext;
+    }
+    
+    // Getters
+    public int getPage() { return page; }
+    public List<GitHubAccount> getAccounts() { return accounts; }
+    public boolean hasNext() { return hasNext; }
+}
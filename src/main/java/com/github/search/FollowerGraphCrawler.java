@@ -0,0 +1,508 @@
+package com.github.search;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Breadth-first walk of the follower/following graph around one account, streaming every
+ * edge it finds to an {@link EdgeSink}.
+ *
+ * Each level is expanded on virtual threads, at most {@code concurrency} accounts at a time.
+ * Accounts already seen are recognised by numeric id in a {@link LongHashSet}, and the
+ * frontier is a pair of parallel arrays, so the crawl state stays at a few tens of bytes per
+ * account. The visited set and the unexpanded frontier are checkpointed to disk every
+ * {@value #CHECKPOINT_INTERVAL} accounts or ten seconds, and after each level; a crawl started again with the
+ * same seed and checkpoint file resumes from there. Accounts expanded after the last checkpoint
+ * are expanded again, so their edges may be emitted twice. Within one run, an account retried
+ * after a transient failure carries on from the first page it has not emitted yet.
+ *
+ * Only accounts that are gone (404) or hide their lists (403) are given up on. When the quota
+ * runs out, the circuit breaker opens or GitHub keeps failing, the account stays unexpanded,
+ * the crawl waits for the reset or cool-down and the level is gone over again; after
+ * {@value #MAX_STALLED_PASSES} passes without progress it stops, leaving the checkpoint to resume from.
+ *
+ * Usage: FollowerGraphCrawler --seed login [--depth 2] [--direction both|followers|following]
+ *                             [--concurrency 8] [--max-users 100000] [--max-pages 10]
+ *                             [--output edges.tsv] [--checkpoint crawl.checkpoint]
+ */
+public class FollowerGraphCrawler {
+    
+    public enum Direction { FOLLOWERS, FOLLOWING, BOTH }
+    
+    /** Receives edges as "follower follows followed"; called from many threads at once. */
+    public interface EdgeSink {
+        void edge(String follower, String followed);
+        
+        /** Called before each checkpoint, so edges of accounts marked as expanded are not lost. */
+        default void flush() throws IOException {
+        }
+    }
+    
+    private static final int CHECKPOINT_MAGIC = 0x47484743;
+    private static final int CHECKPOINT_VERSION = 1;
+    private static final int CHECKPOINT_INTERVAL = 200;
+    private static final long CHECKPOINT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int PER_PAGE = 100;
+    private static final long PROGRESS_INTERVAL_SECONDS = 5;
+    private static final long TRANSIENT_BACKOFF_MILLIS = 5_000;
+    private static final int MAX_STALLED_PASSES = 5;
+    // The seed is known by login only until it shows up in someone's list
+    private static final long UNKNOWN_ID = -1;
+    
+    private final GitHubApiService apiService;
+    private final Direction direction;
+    private final int maxDepth;
+    private final int concurrency;
+    private final int maxUsers;
+    private final int maxPagesPerList;
+    
+    // Crawl state, guarded by this
+    private String seed;
+    private Path checkpoint;
+    private LongHashSet visited;
+    private int depth;
+    private Frontier current;
+    private BitSet expanded;
+    private Frontier next;
+    // Pages already emitted of accounts in the current level that are not fully expanded yet,
+    // keyed by listKey; a list that is done counts as maxPagesPerList
+    private final Map<Integer, Integer> pagesEmitted = new HashMap<>();
+    private int expandedSinceCheckpoint;
+    private long lastCheckpointNanos = System.nanoTime();
+    
+    private final AtomicLong expandedCount = new AtomicLong();
+    private final AtomicLong edgeCount = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    // Epoch millis before which no more accounts are started, after GitHub said to back off
+    private final AtomicLong resumeAtMillis = new AtomicLong();
+    
+    public FollowerGraphCrawler(GitHubApiService apiService, Direction direction, int maxDepth, int concurrency,
+                                int maxUsers, int maxPagesPerList) {
+        this.apiService = apiService;
+        this.direction = direction;
+        this.maxDepth = maxDepth;
+        this.concurrency = Math.max(1, concurrency);
+        this.maxUsers = maxUsers;
+        this.maxPagesPerList = maxPagesPerList;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        String seed = null;
+        int depth = 2;
+        Direction direction = Direction.BOTH;
+        int concurrency = 8;
+        int maxUsers = 100_000;
+        int maxPages = 10;
+        String output = "edges.tsv";
+        String checkpoint = "crawl.checkpoint";
+        
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seed" -> seed = args[++i];
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--direction" -> direction = Direction.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                case "--max-users" -> maxUsers = Integer.parseInt(args[++i]);
+                case "--max-pages" -> maxPages = Integer.parseInt(args[++i]);
+                case "--output" -> output = args[++i];
+                case "--checkpoint" -> checkpoint = args[++i];
+                default -> {
+                    System.err.println("Unknown option: " + args[i]);
+                    printUsage();
+                    System.exit(2);
+                }
+            }
+        }
+        if (seed == null) {
+            printUsage();
+            System.exit(2);
+        }
+        
+        FollowerGraphCrawler crawler = new FollowerGraphCrawler(new GitHubApiService(), direction, depth,
+                concurrency, maxUsers, maxPages);
+        long startNanos = System.nanoTime();
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "crawler-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        progress.scheduleAtFixedRate(() -> crawler.reportProgress(startNanos),
+                PROGRESS_INTERVAL_SECONDS, PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(output, true), StandardCharsets.UTF_8))) {
+            crawler.crawl(seed, new EdgeSink() {
+                @Override
+                public void edge(String follower, String followed) {
+                    synchronized (writer) {
+                        try {
+                            writer.write(follower);
+                            writer.write('\t');
+                            writer.write(followed);
+                            writer.write('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                }
+                
+                @Override
+                public void flush() throws IOException {
+                    synchronized (writer) {
+                        writer.flush();
+                    }
+                }
+            }, Paths.get(checkpoint));
+        } finally {
+            progress.shutdownNow();
+        }
+        crawler.reportProgress(startNanos);
+    }
+    
+    private static void printUsage() {
+        System.err.println("Usage: FollowerGraphCrawler --seed <login> [--depth 2] "
+                + "[--direction both|followers|following] [--concurrency 8] [--max-users 100000] "
+                + "[--max-pages 10] [--output edges.tsv] [--checkpoint crawl.checkpoint]");
+    }
+    
+    /**
+     * Crawls out to {@code maxDepth} hops from {@code seed}. A null checkpoint disables
+     * checkpointing; otherwise the file is deleted once the crawl completes.
+     */
+    public void crawl(String seed, EdgeSink sink, Path checkpoint) throws IOException, InterruptedException {
+        synchronized (this) {
+            this.seed = seed;
+            this.checkpoint = checkpoint;
+            if (checkpoint == null || !resume(seed, checkpoint)) {
+                visited = new LongHashSet(1024);
+                depth = 0;
+                current = new Frontier();
+                current.add(UNKNOWN_ID, seed);
+                expanded = new BitSet();
+                next = new Frontier();
+            }
+        }
+        
+        while (true) {
+            Frontier level;
+            synchronized (this) {
+                if (depth >= maxDepth || current.size() == 0) {
+                    break;
+                }
+                level = current;
+            }
+            expandLevel(level, sink);
+            synchronized (this) {
+                current = next;
+                next = new Frontier();
+                expanded = new BitSet();
+                pagesEmitted.clear();
+                depth++;
+                writeCheckpoint(sink);
+            }
+        }
+        sink.flush();
+        if (checkpoint != null) {
+            Files.deleteIfExists(checkpoint);
+        }
+    }
+    
+    // Getters
+    public synchronized int getVisitedCount() { return visited != null ? visited.size() : 0; }
+    public synchronized int getDepth() { return depth; }
+    public long getExpandedCount() { return expandedCount.get(); }
+    public long getEdgeCount() { return edgeCount.get(); }
+    public long getFailureCount() { return failures.get(); }
+    
+    // Goes over the level until every account is expanded, waiting out rate limits and outages
+    private void expandLevel(Frontier level, EdgeSink sink) throws IOException, InterruptedException {
+        int stalled = 0;
+        while (true) {
+            long before = expandedCount.get();
+            expandPass(level, sink);
+            int left;
+            synchronized (this) {
+                left = level.size() - expanded.cardinality();
+            }
+            if (left == 0) {
+                return;
+            }
+            stalled = expandedCount.get() > before ? 0 : stalled + 1;
+            if (stalled >= MAX_STALLED_PASSES) {
+                synchronized (this) {
+                    writeCheckpoint(sink);
+                }
+                throw new IOException(left + " accounts at depth " + depth + " could not be expanded;"
+                        + " run again later to resume from the checkpoint");
+            }
+        }
+    }
+    
+    private void expandPass(Frontier level, EdgeSink sink) throws InterruptedException {
+        Semaphore permits = new Semaphore(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < level.size(); i++) {
+                synchronized (this) {
+                    if (expanded.get(i)) {
+                        continue;
+                    }
+                }
+                permits.acquire();
+                long wait = resumeAtMillis.get() - System.currentTimeMillis();
+                if (wait > 0) {
+                    Thread.sleep(wait);
+                }
+                int index = i;
+                executor.submit(() -> {
+                    try {
+                        expand(level.login(index), index, sink);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            // Closing the executor waits for the rest of the level
+        }
+    }
+    
+    private void expand(String login, int index, EdgeSink sink) {
+        boolean complete = true;
+        if (direction != Direction.FOLLOWING) {
+            complete = walk(login, index, true, sink);
+        }
+        if (direction != Direction.FOLLOWERS) {
+            complete &= walk(login, index, false, sink);
+        }
+        if (!complete) {
+            // Interrupted or backing off: leave the account unexpanded so it is tried again
+            return;
+        }
+        expandedCount.incrementAndGet();
+        synchronized (this) {
+            expanded.set(index);
+            pagesEmitted.remove(listKey(index, true));
+            pagesEmitted.remove(listKey(index, false));
+            if (++expandedSinceCheckpoint >= CHECKPOINT_INTERVAL
+                    || System.nanoTime() - lastCheckpointNanos >= CHECKPOINT_INTERVAL_NANOS) {
+                writeCheckpoint(sink);
+            }
+        }
+    }
+    
+    // Pages through one list of the account, skipping pages emitted by an earlier attempt;
+    // false if interrupted or stopped by a transient failure
+    private boolean walk(String login, int index, boolean followers, EdgeSink sink) {
+        int key = listKey(index, followers);
+        int firstPage;
+        synchronized (this) {
+            firstPage = pagesEmitted.getOrDefault(key, 0) + 1;
+        }
+        for (int page = firstPage; page <= maxPagesPerList; page++) {
+            FollowPage result;
+            try {
+                result = (followers
+                        ? apiService.getFollowersPageAsync(login, page, PER_PAGE, RateLimitScheduler.Priority.BACKGROUND)
+                        : apiService.getFollowingPageAsync(login, page, PER_PAGE, RateLimitScheduler.Priority.BACKGROUND))
+                        .get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof UserNotFoundException
+                        || (cause instanceof GitHubApiException api && api.getStatusCode() == 403
+                        && !(cause instanceof RateLimitedException))) {
+                    // Deleted accounts and hidden lists; the rest of the crawl carries on
+                    failures.incrementAndGet();
+                    markDone(key);
+                    return true;
+                }
+                backOff(cause);
+                return false;
+            }
+            for (GitHubAccount account : result.getAccounts()) {
+                if (followers) {
+                    sink.edge(account.getLogin(), login);
+                } else {
+                    sink.edge(login, account.getLogin());
+                }
+            }
+            edgeCount.addAndGet(result.getAccounts().size());
+            discover(result);
+            synchronized (this) {
+                pagesEmitted.put(key, page);
+            }
+            if (!result.hasNext()) {
+                break;
+            }
+        }
+        markDone(key);
+        return true;
+    }
+    
+    private synchronized void markDone(int key) {
+        pagesEmitted.put(key, maxPagesPerList);
+    }
+    
+    private static int listKey(int index, boolean followers) {
+        return index * 2 + (followers ? 0 : 1);
+    }
+    
+    // Rate limits wait for the reset, an open breaker for its cool-down, anything else a few seconds
+    private void backOff(Throwable cause) {
+        long until = System.currentTimeMillis() + TRANSIENT_BACKOFF_MILLIS;
+        if (cause instanceof RateLimitedException limited && limited.getResetEpochSeconds() > 0) {
+            until = limited.getResetEpochSeconds() * 1000;
+        } else if (cause instanceof CircuitOpenException open) {
+            until = open.getRetryAtMillis();
+        }
+        resumeAtMillis.accumulateAndGet(until, Math::max);
+    }
+    
+    private synchronized void discover(FollowPage page) {
+        boolean expandNext = depth + 1 < maxDepth;
+        for (GitHubAccount account : page.getAccounts()) {
+            if (account.getLogin().equalsIgnoreCase(seed)) {
+                visited.add(account.getId());
+                continue;
+            }
+            if (visited.contains(account.getId()) || visited.size() >= maxUsers) {
+                continue;
+            }
+            visited.add(account.getId());
+            if (expandNext) {
+                next.add(account.getId(), account.getLogin());
+            }
+        }
+    }
+    
+    // Caller holds the lock, so the visited set and both frontiers are captured consistently
+    private void writeCheckpoint(EdgeSink sink) {
+        expandedSinceCheckpoint = 0;
+        lastCheckpointNanos = System.nanoTime();
+        if (checkpoint == null) {
+            return;
+        }
+        Path temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try {
+            sink.flush();
+            try (FileOutputStream file = new FileOutputStream(temp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                out.writeInt(CHECKPOINT_MAGIC);
+                out.writeInt(CHECKPOINT_VERSION);
+                out.writeUTF(seed);
+                out.writeInt(depth);
+                long[] ids = visited.toArray();
+                out.writeInt(ids.length);
+                for (long id : ids) {
+                    out.writeLong(id);
+                }
+                out.writeInt(current.size() - expanded.cardinality());
+                for (int i = 0; i < current.size(); i++) {
+                    if (!expanded.get(i)) {
+                        out.writeLong(current.id(i));
+                        out.writeUTF(current.login(i));
+                    }
+                }
+                out.writeInt(next.size());
+                for (int i = 0; i < next.size(); i++) {
+                    out.writeLong(next.id(i));
+                    out.writeUTF(next.login(i));
+                }
+                out.flush();
+                file.getFD().sync();
+            }
+            Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to write crawl checkpoint: " + e.getMessage());
+        }
+    }
+    
+    private boolean resume(String seed, Path checkpoint) throws IOException {
+        if (!Files.exists(checkpoint)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+                System.err.println("Ignoring unreadable checkpoint " + checkpoint);
+                return false;
+            }
+            String savedSeed = in.readUTF();
+            if (!savedSeed.equalsIgnoreCase(seed)) {
+                System.err.println("Ignoring checkpoint " + checkpoint + " from a crawl of " + savedSeed);
+                return false;
+            }
+            depth = in.readInt();
+            int visitedCount = in.readInt();
+            visited = new LongHashSet(Math.max(1024, visitedCount));
+            for (int i = 0; i < visitedCount; i++) {
+                visited.add(in.readLong());
+            }
+            current = readFrontier(in);
+            next = readFrontier(in);
+            expanded = new BitSet();
+        }
+        System.err.println("Resuming crawl of " + seed + " at depth " + depth + ": " + visited.size()
+                + " accounts seen, " + current.size() + " left to expand on this level");
+        return true;
+    }
+    
+    private static Frontier readFrontier(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Frontier frontier = new Frontier();
+        for (int i = 0; i < count; i++) {
+            frontier.add(in.readLong(), in.readUTF());
+        }
+        return frontier;
+    }
+    
+    private void reportProgress(long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        long footprint;
+        synchronized (this) {
+            footprint = visited != null ? visited.footprintBytes() : 0;
+        }
+        RateLimitScheduler.Status quota = apiService.getRateLimitStatus();
+        System.err.printf(Locale.ROOT,
+                "Depth %d: %d accounts seen (visited set %.1f MB), %d expanded, %d edges, %d failed in %.1fs, "
+                        + "quota remaining %d%n",
+                getDepth(), getVisitedCount(), footprint / (1024.0 * 1024.0), getExpandedCount(), getEdgeCount(),
+                getFailureCount(), seconds, quota.remaining());
+    }
+    
+    // Accounts of one level as parallel arrays rather than one object per account
+    private static final class Frontier {
+        private long[] ids = new long[16];
+        private String[] logins = new String[16];
+        private int size;
+        
+        void add(long id, String login) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                logins = Arrays.copyOf(logins, size * 2);
+            }
+            ids[size] = id;
+            logins[size] = login;
+            size++;
+        }
+        
+        int size() { return size; }
+        long id(int i) { return ids[i]; }
+        String login(int i) { return logins[i]; }
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.search;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+final class Futures {
+    
+    private Futures() {
+    }
+    
+    // Dependent stages do not cancel their source; this wires that up so cancelling
+    // what the caller holds also stops the work (HTTP exchange, queued request) behind it.
+    static <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> dependent, Future<?> source) {
+        dependent.whenComplete((value, error) -> {
+            if (dependent.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return dependent;
+    }
+    
+    // Starts the request, and a second copy if the first has not finished after delayMillis.
+    // The first success wins and the other copy is cancelled; it fails only if both fail.
+    static <T> CompletableFuture<T> hedge(Supplier<CompletableFuture<T>> request, long delayMillis,
+                                          ScheduledExecutorService timer, Runnable onHedge) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        List<CompletableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger(1);
+        
+        start(request, result, attempts, running);
+        ScheduledFuture<?> backup = timer.schedule(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            running.incrementAndGet();
+            onHedge.run();
+            start(request, result, attempts, running);
+        }, delayMillis, TimeUnit.MILLISECONDS);
+        
+        result.whenComplete((value, error) -> {
+            backup.cancel(false);
+            for (CompletableFuture<T> attempt : attempts) {
+                attempt.cancel(true);
+            }
+        });
+        return result;
+    }
+    
+    private static <T> void start(Supplier<CompletableFuture<T>> request, CompletableFuture<T> result,
+                                  List<CompletableFuture<T>> attempts, AtomicInteger running) {
+        CompletableFuture<T> attempt = request.get();
+        attempts.add(attempt);
+        if (result.isDone()) {
+            attempt.cancel(true);
+        }
+        attempt.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+            } else if (running.decrementAndGet() == 0) {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+}
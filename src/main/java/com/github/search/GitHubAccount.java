@@ -0,0 +1,16 @@
+package com.github.search;
+
+/** An account in a follower/following list or in search results: just enough to identify it. */
+public class GitHubAccount {
+    private final long id;
+    private final String login;
+    
+    public GitHubAccount(long id, String login) {
+        this.id = id;
+        this.login = login;
+    }
+    
+    // Getters
+    public long getId() { return id; }
+    public String getLogin() { return login; }
+}
@@ -0,0 +1,29 @@
+package com.github.search;
+
+/**
+ * A GitHub API call that did not produce a result. Subclasses tell the usual cases apart so
+ * callers can use {@code instanceof} instead of looking at messages.
+ */
+public class GitHubApiException extends Exception {
+    
+    private final int statusCode;
+    
+    public GitHubApiException(String message, int statusCode) {
+        this(message, statusCode, null);
+    }
+    
+    public GitHubApiException(String message, int statusCode, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+    }
+    
+    /** HTTP status of the failed response, or -1 if there was none. */
+    public int getStatusCode() {
+        return statusCode;
+    }
+    
+    /** Whether sending the same request again may succeed. */
+    public boolean isRetryable() {
+        return false;
+    }
+}
@@ -1,109 +1,658 @@
 package com.github.search;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * Client for the GitHub REST API, plus a GraphQL path that fetches whole profiles (a user
+ * and their first repositories) for many users per request.
+ *
+ * Every GET goes through the response cache and the rate-limit scheduler. Failed attempts are
+ * retried per the {@link RetryPolicy} (server errors, timeouts and dropped connections only),
+ * and a {@link CircuitBreaker} refuses calls outright while most recent ones have failed,
+ * answering from the cache where it can. Interactive calls can optionally be hedged: if a
+ * response is slower than the recent 95th percentile, an identical request is sent and the
+ * first answer wins. Failures surface as {@link GitHubApiException} subclasses.
+ *
+ * GraphQL requests share the retries and breaker but not the response cache, and have a
+ * scheduler of their own because GraphQL is a separate, points-based quota. They need a
+ * token on github.com, so they are used by default only when GITHUB_TOKEN is set.
+ */
 public class GitHubApiService {
     
-    private static final String GITHUB_API_BASE = "https://api.github.com";
-    private final Gson gson;
+    private static final String DEFAULT_API_BASE = "https://api.github.com";
+    // Points every service at another server (e.g. a local mock) unless one is passed in
+    private static final String API_BASE_PROPERTY = "github.api.base";
+    // Set to true to hedge slow interactive requests
+    private static final String HEDGE_PROPERTY = "github.api.hedge";
+    // Set to true or false to force profile lookups over GraphQL on or off
+    private static final String GRAPHQL_PROPERTY = "github.api.graphql";
+    // Personal access token, sent with every request when present
+    private static final String TOKEN_ENV = "GITHUB_TOKEN";
+    
+    // One client for the whole app so connections (and TLS sessions) are kept alive
+    // and HTTP/2 streams are multiplexed over them.
+    private static final HttpClient SHARED_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    
+    // Decoding blocks on the response stream, so it runs on cheap virtual threads
+    // rather than on the HTTP client's own executor.
+    private static final Executor DECODE_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    
+    // The quota is per client, so every service instance shares one scheduler by default
+    private static final RateLimitScheduler SHARED_SCHEDULER = new RateLimitScheduler(10, 20);
+    // The search API has its own, much smaller quota (10 or 30 requests a minute), tracked apart
+    // so typeahead can neither drain the core quota nor be held up behind it
+    private static final RateLimitScheduler SHARED_SEARCH_SCHEDULER = new RateLimitScheduler(0.5, 10);
+    // GraphQL is metered in points against its own hourly quota (X-RateLimit-Resource: graphql),
+    // so its headers must not move the core quota's remaining count or reset time
+    private static final RateLimitScheduler SHARED_GRAPHQL_SCHEDULER = new RateLimitScheduler(2, 10);
+    
+    // Retry backoff, hedging delays and read-timeout watchdogs
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "github-api-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private static final int DEFAULT_CACHE_ENTRIES = 256;
+    private static final int MAX_PER_PAGE = 100;
+    private static final int DEFAULT_PAGE_CONCURRENCY = 4;
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+    private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(20);
+    private static final long DEFAULT_HEDGE_DELAY_MILLIS = 1000;
+    private static final long MIN_HEDGE_DELAY_MILLIS = 50;
+    private static final int HEDGE_MIN_SAMPLES = 20;
+    
+    private final String apiBase;
+    private final HttpClient httpClient;
+    private final ResponseCache responseCache;
+    private final RateLimitScheduler scheduler;
+    private final RateLimitScheduler searchScheduler = SHARED_SEARCH_SCHEDULER;
+    private final RateLimitScheduler graphQLScheduler = SHARED_GRAPHQL_SCHEDULER;
+    private final SingleFlight<String, Object> requests = new SingleFlight<>();
+    private final ApiMetrics metrics;
+    private final CircuitBreaker circuitBreaker;
+    private volatile RetryPolicy retryPolicy = RetryPolicy.defaults();
+    private volatile boolean hedging = Boolean.getBoolean(HEDGE_PROPERTY);
+    private volatile Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+    private volatile Duration readTimeout = DEFAULT_READ_TIMEOUT;
+    private volatile String token = emptyToNull(System.getenv(TOKEN_ENV));
+    private volatile boolean graphQL = System.getProperty(GRAPHQL_PROPERTY) != null
+            ? Boolean.getBoolean(GRAPHQL_PROPERTY) : token != null;
     
     public GitHubApiService() {
-        this.gson = new Gson();
+        this(SHARED_CLIENT, new ResponseCache(DEFAULT_CACHE_ENTRIES));
+    }
+    
+    public GitHubApiService(ResponseCache responseCache) {
+        this(SHARED_CLIENT, responseCache);
+    }
+    
+    public GitHubApiService(HttpClient httpClient, ResponseCache responseCache) {
+        this(httpClient, responseCache, SHARED_SCHEDULER);
+    }
+    
+    public GitHubApiService(HttpClient httpClient, ResponseCache responseCache, RateLimitScheduler scheduler) {
+        this(httpClient, responseCache, scheduler, System.getProperty(API_BASE_PROPERTY, DEFAULT_API_BASE));
+    }
+    
+    public GitHubApiService(HttpClient httpClient, ResponseCache responseCache, RateLimitScheduler scheduler,
+                            String apiBase) {
+        this.apiBase = apiBase.endsWith("/") ? apiBase.substring(0, apiBase.length() - 1) : apiBase;
+        this.httpClient = httpClient;
+        this.responseCache = responseCache;
+        this.scheduler = scheduler;
+        this.circuitBreaker = CircuitBreaker.defaults();
+        this.metrics = new ApiMetrics(scheduler, circuitBreaker);
+    }
+    
+    /** The pooled client, for other GitHub downloads (e.g. avatars) that should share its connections. */
+    public static HttpClient sharedHttpClient() {
+        return SHARED_CLIENT;
+    }
+    
+    public String getApiBase() {
+        return apiBase;
+    }
+    
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+    
+    public RateLimitScheduler.Status getRateLimitStatus() {
+        return scheduler.getStatus();
+    }
+    
+    public RateLimitScheduler.Status getSearchRateLimitStatus() {
+        return searchScheduler.getStatus();
+    }
+    
+    public RateLimitScheduler.Status getGraphQLRateLimitStatus() {
+        return graphQLScheduler.getStatus();
+    }
+    
+    public SingleFlight<String, Object> getRequestCoalescer() {
+        return requests;
+    }
+    
+    public ApiMetrics getMetrics() {
+        return metrics;
+    }
+    
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+    
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+    
+    public void setHedging(boolean hedging) {
+        this.hedging = hedging;
+    }
+    
+    /**
+     * How long to wait for the response headers once a request is sent, and then for the
+     * whole body. Connecting is bounded separately by the HTTP client's connect timeout.
+     */
+    public void setTimeouts(Duration requestTimeout, Duration readTimeout) {
+        this.requestTimeout = requestTimeout;
+        this.readTimeout = readTimeout;
+    }
+    
+    public void setToken(String token) {
+        this.token = emptyToNull(token);
+    }
+    
+    public boolean isGraphQLEnabled() {
+        return graphQL;
+    }
+    
+    public void setGraphQLEnabled(boolean graphQL) {
+        this.graphQL = graphQL;
     }
     
     public GitHubUser getUser(String username) throws Exception {
-        String url = GITHUB_API_BASE + "/users/" + username;
-        String response = makeHttpRequest(url);
-        
-        JsonObject userJson = gson.fromJson(response, JsonObject.class);
-        
-        return new GitHubUser(
-            userJson.get("login").getAsString(),
-            userJson.has("name") && !userJson.get("name").isJsonNull() ? 
-                userJson.get("name").getAsString() : null,
-            userJson.get("avatar_url").getAsString(),
-            userJson.has("bio") && !userJson.get("bio").isJsonNull() ? 
-                userJson.get("bio").getAsString() : null,
-            userJson.get("public_repos").getAsInt(),
-            userJson.get("followers").getAsInt(),
-            userJson.get("following").getAsInt(),
-            userJson.has("location") && !userJson.get("location").isJsonNull() ? 
-                userJson.get("location").getAsString() : null,
-            userJson.has("blog") && !userJson.get("blog").isJsonNull() ? 
-                userJson.get("blog").getAsString() : null,
-            userJson.has("company") && !userJson.get("company").isJsonNull() ? 
-                userJson.get("company").getAsString() : null,
-            userJson.has("email") && !userJson.get("email").isJsonNull() ? 
-                userJson.get("email").getAsString() : null,
-            userJson.get("created_at").getAsString(),
-            userJson.get("html_url").getAsString()
-        );
+        return await(getUserAsync(username));
     }
     
     public List<GitHubRepository> getUserRepositories(String username, int limit) throws Exception {
-        String url = GITHUB_API_BASE + "/users/" + username + "/repos?sort=updated&per_page=" + limit;
-        String response = makeHttpRequest(url);
+        return await(getUserRepositoriesAsync(username, limit));
+    }
+    
+    public CompletableFuture<GitHubUser> getUserAsync(String username) {
+        return getUserAsync(username, RateLimitScheduler.Priority.INTERACTIVE);
+    }
+    
+    public CompletableFuture<GitHubUser> getUserAsync(String username, RateLimitScheduler.Priority priority) {
+        String url = apiBase + "/users/" + username;
+        return fetchAsync(url, ApiMetrics.Endpoint.USER, priority, GitHubJsonDecoder::readUser);
+    }
+    
+    public CompletableFuture<List<GitHubRepository>> getUserRepositoriesAsync(String username, int limit) {
+        return getUserRepositoriesAsync(username, limit, RateLimitScheduler.Priority.INTERACTIVE);
+    }
+    
+    public CompletableFuture<List<GitHubRepository>> getUserRepositoriesAsync(String username, int limit,
+                                                                             RateLimitScheduler.Priority priority) {
+        String url = apiBase + "/users/" + username + "/repos?sort=updated&per_page=" + limit;
+        return fetchAsync(url, ApiMetrics.Endpoint.REPOSITORIES, priority, GitHubJsonDecoder::readRepositories);
+    }
+    
+    public CompletableFuture<RepositoryPage> getRepositoryPageAsync(String username, int page, int perPage,
+                                                                    RateLimitScheduler.Priority priority) {
+        String url = apiBase + "/users/" + username + "/repos?sort=updated&per_page=" + perPage
+                + "&page=" + page;
+        return fetchAsync(url, ApiMetrics.Endpoint.REPOSITORIES, priority, GitHubJsonDecoder::readRepositories,
+                (repositories, headers) -> {
+                    LinkHeader links = LinkHeader.parse(headers.firstValue("Link").orElse(null));
+                    return new RepositoryPage(page, repositories, links.page("last"), links.has("next"));
+                });
+    }
+    
+    /** One page of the accounts following {@code username}. */
+    public CompletableFuture<FollowPage> getFollowersPageAsync(String username, int page, int perPage,
+                                                               RateLimitScheduler.Priority priority) {
+        return getFollowPageAsync(username, "followers", page, perPage, priority);
+    }
+    
+    /** One page of the accounts {@code username} follows. */
+    public CompletableFuture<FollowPage> getFollowingPageAsync(String username, int page, int perPage,
+                                                               RateLimitScheduler.Priority priority) {
+        return getFollowPageAsync(username, "following", page, perPage, priority);
+    }
+    
+    private CompletableFuture<FollowPage> getFollowPageAsync(String username, String relation, int page,
+                                                             int perPage, RateLimitScheduler.Priority priority) {
+        String url = apiBase + "/users/" + username + "/" + relation + "?per_page=" + perPage + "&page=" + page;
+        return fetchAsync(url, ApiMetrics.Endpoint.FOLLOWS, priority, GitHubJsonDecoder::readAccounts,
+                (accounts, headers) -> new FollowPage(page, accounts,
+                        LinkHeader.parse(headers.firstValue("Link").orElse(null)).has("next")));
+    }
+    
+    /** Accounts whose login matches {@code query}, best matches first, paced by the search quota. */
+    public CompletableFuture<UserSearchResult> searchUsersAsync(String query, int perPage,
+                                                                RateLimitScheduler.Priority priority) {
+        String url = apiBase + "/search/users?q=" + URLEncoder.encode(query + " in:login", StandardCharsets.UTF_8)
+                + "&per_page=" + perPage;
+        return fetchAsync(url, ApiMetrics.Endpoint.SEARCH, priority, GitHubJsonDecoder::readUserSearch);
+    }
+    
+    /** A user and their {@code repositoryLimit} most recently updated repositories, in one GraphQL request. */
+    public CompletableFuture<GitHubProfile> getProfileAsync(String username, int repositoryLimit,
+                                                            RateLimitScheduler.Priority priority) {
+        return getProfilesAsync(List.of(username), repositoryLimit, priority).get(username);
+    }
+    
+    /**
+     * Profiles of many users over GraphQL, as one future per login (in the order given). The
+     * logins are sent in as few requests as the query limits allow; a batch GitHub refuses as
+     * too large is split in half and sent again. Unknown users fail with {@link UserNotFoundException}.
+     */
+    public Map<String, CompletableFuture<GitHubProfile>> getProfilesAsync(Collection<String> usernames,
+                                                                         int repositoryLimit,
+                                                                         RateLimitScheduler.Priority priority) {
+        Map<String, CompletableFuture<GitHubProfile>> results = new LinkedHashMap<>();
+        for (String username : usernames) {
+            results.putIfAbsent(username, new CompletableFuture<>());
+        }
+        List<String> logins = new ArrayList<>(results.keySet());
+        int batchSize = GitHubGraphQL.batchSize(repositoryLimit);
+        for (int from = 0; from < logins.size(); from += batchSize) {
+            fetchProfiles(logins.subList(from, Math.min(from + batchSize, logins.size())), repositoryLimit,
+                    priority, results);
+        }
+        return results;
+    }
+    
+    private void fetchProfiles(List<String> logins, int repositoryLimit, RateLimitScheduler.Priority priority,
+                               Map<String, CompletableFuture<GitHubProfile>> results) {
+        String body = GitHubGraphQL.query(logins, repositoryLimit);
+        CompletableFuture<GitHubGraphQL.Batch> call = callWithRetries(() -> sendAsync(apiBase + "/graphql", body,
+                ApiMetrics.Endpoint.GRAPHQL, null, priority,
+                reader -> GitHubGraphQL.readBatch(reader, logins.size(), repositoryLimit),
+                (batch, headers) -> batch), null);
+        // Nobody is waiting for any of these users any more: stop the request
+        for (String login : logins) {
+            results.get(login).whenComplete((profile, error) -> {
+                if (logins.stream().allMatch(other -> results.get(other).isCancelled())) {
+                    call.cancel(true);
+                }
+            });
+        }
         
-        JsonArray reposArray = gson.fromJson(response, JsonArray.class);
-        List<GitHubRepository> repositories = new ArrayList<>();
+        call.whenComplete((batch, error) -> {
+            Throwable failure = error != null ? unwrap(error) : null;
+            if (failure instanceof CancellationException) {
+                return;
+            }
+            // Only a refusal for size, or a timeout while GitHub is otherwise answering, says the batch
+            // was too big; 5xx, dropped connections and an open breaker fail it whole rather than
+            // doubling the traffic at every split
+            boolean tooLarge = failure != null
+                    ? failure instanceof ApiTimeoutException && circuitBreaker.getState() == CircuitBreaker.State.CLOSED
+                    : batch.failed() && GitHubGraphQL.isTooLarge(batch.queryErrorType);
+            if (tooLarge && logins.size() > 1) {
+                int half = logins.size() / 2;
+                fetchProfiles(logins.subList(0, half), repositoryLimit, priority, results);
+                fetchProfiles(logins.subList(half, logins.size()), repositoryLimit, priority, results);
+                return;
+            }
+            for (int i = 0; i < logins.size(); i++) {
+                CompletableFuture<GitHubProfile> result = results.get(logins.get(i));
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else if (batch.profiles[i] != null) {
+                    result.complete(batch.profiles[i]);
+                } else if ("NOT_FOUND".equals(batch.errorTypes[i])
+                        || (batch.errorTypes[i] == null && !batch.hasQueryError)) {
+                    result.completeExceptionally(new UserNotFoundException("/users/" + logins.get(i)));
+                } else {
+                    String message = batch.errorTypes[i] != null ? batch.errorMessages[i] : batch.queryErrorMessage;
+                    result.completeExceptionally(new GitHubApiException("GraphQL error: " + message, 200));
+                }
+            }
+        });
+    }
+    
+    /** All of a user's repositories, page by page; later pages are prefetched in parallel. */
+    public RepositoryPages streamUserRepositories(String username) {
+        return new RepositoryPages(this, username, MAX_PER_PAGE, DEFAULT_PAGE_CONCURRENCY,
+                RateLimitScheduler.Priority.INTERACTIVE);
+    }
+    
+    // Conditional GET through the response cache: fresh entries skip the network, and a
+    // 304 hands back the object parsed last time instead of parsing the body again.
+    private <T> CompletableFuture<T> fetchAsync(String url, ApiMetrics.Endpoint endpoint,
+                                                RateLimitScheduler.Priority priority,
+                                                GitHubJsonDecoder.Decoder<T> decoder) {
+        return fetchAsync(url, endpoint, priority, decoder, (value, headers) -> value);
+    }
+    
+    // The finisher sees the response headers (e.g. Link) and produces the object that is cached.
+    @SuppressWarnings("unchecked")
+    private <T, R> CompletableFuture<R> fetchAsync(String url, ApiMetrics.Endpoint endpoint,
+                                                   RateLimitScheduler.Priority priority,
+                                                   GitHubJsonDecoder.Decoder<T> decoder,
+                                                   BiFunction<T, HttpHeaders, R> finisher) {
+        ResponseCache.Entry cached = responseCache != null ? responseCache.get(url) : null;
+        if (cached != null && cached.isFresh()) {
+            responseCache.recordHit();
+            return CompletableFuture.completedFuture((R) cached.getValue());
+        }
         
-        for (int i = 0; i < reposArray.size(); i++) {
-            JsonObject repoJson = reposArray.get(i).getAsJsonObject();
+        // Concurrent callers for the same URL share one request and its decoded result
+        Supplier<CompletableFuture<R>> send = () -> sendAsync(url, null, endpoint, cached, priority, decoder, finisher);
+        Supplier<CompletableFuture<R>> call = hedging && priority == RateLimitScheduler.Priority.INTERACTIVE
+                ? () -> Futures.hedge(send, hedgeDelayMillis(endpoint), TIMER, metrics::recordHedge)
+                : send;
+        return (CompletableFuture<R>) requests.execute(url,
+                () -> (CompletableFuture<Object>) callWithRetries(call, cached));
+    }
+    
+    private <R> CompletableFuture<R> callWithRetries(Supplier<CompletableFuture<R>> call, ResponseCache.Entry cached) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<R>> inFlight = new AtomicReference<>();
+        result.whenComplete((value, error) -> {
+            CompletableFuture<R> attempt = inFlight.get();
+            if (result.isCancelled() && attempt != null) {
+                attempt.cancel(true);
+            }
+        });
+        attempt(1, call, cached, result, inFlight);
+        return result;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <R> void attempt(int number, Supplier<CompletableFuture<R>> call, ResponseCache.Entry cached,
+                             CompletableFuture<R> result, AtomicReference<CompletableFuture<R>> inFlight) {
+        if (result.isDone()) {
+            return;
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            if (cached != null && cached.getValue() != null) {
+                // An old answer beats none while GitHub is failing
+                result.complete((R) cached.getValue());
+            } else {
+                result.completeExceptionally(new CircuitOpenException(circuitBreaker.getRetryAtMillis()));
+            }
+            return;
+        }
+        CompletableFuture<R> current = call.get();
+        inFlight.set(current);
+        if (result.isCancelled()) {
+            current.cancel(true);
+        }
+        current.whenComplete((value, error) -> {
+            if (error == null) {
+                circuitBreaker.onSuccess();
+                result.complete(value);
+                return;
+            }
+            Throwable failure = unwrap(error);
+            if (failure instanceof CancellationException) {
+                circuitBreaker.onIgnored();
+                result.completeExceptionally(failure);
+                return;
+            }
+            // A 404 or a rate limit is a healthy upstream answering; only the retryable kinds count against it
+            if (RetryPolicy.isRetryable(failure)) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            RetryPolicy policy = retryPolicy;
+            if (policy.shouldRetry(failure, number) && !result.isDone()) {
+                metrics.recordRetry();
+                TIMER.schedule(() -> attempt(number + 1, call, cached, result, inFlight),
+                        policy.delayMillis(number), TimeUnit.MILLISECONDS);
+            } else {
+                result.completeExceptionally(failure);
+            }
+        });
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof HttpTimeoutException) {
+            return new ApiTimeoutException("No response within the timeout", cause);
+        }
+        return cause;
+    }
+    
+    // Hedge once a call takes longer than most recent ones did, when there are enough of them to tell
+    private long hedgeDelayMillis(ApiMetrics.Endpoint endpoint) {
+        LatencyHistogram total = metrics.histogram(endpoint, ApiMetrics.Stage.TOTAL);
+        if (total.getCount() < HEDGE_MIN_SAMPLES) {
+            return DEFAULT_HEDGE_DELAY_MILLIS;
+        }
+        return Math.max(MIN_HEDGE_DELAY_MILLIS, total.getPercentileMicros(95) / 1000);
+    }
+    
+    // A GET, or a POST of the JSON body when there is one (GraphQL); only GETs are cached
+    private <T, R> CompletableFuture<R> sendAsync(String url, String body, ApiMetrics.Endpoint endpoint,
+                                                  ResponseCache.Entry cached, RateLimitScheduler.Priority priority,
+                                                  GitHubJsonDecoder.Decoder<T> decoder,
+                                                  BiFunction<T, HttpHeaders, R> finisher) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header("User-Agent", "GitHub-Profile-Explorer");
+        if (body == null) {
+            request.GET().header("Accept", "application/vnd.github.v3+json");
+        } else {
+            request.POST(HttpRequest.BodyPublishers.ofString(body))
+                    .header("Accept", "application/json")
+                    .header("Content-Type", "application/json");
+        }
+        String currentToken = token;
+        if (currentToken != null) {
+            request.header("Authorization", "Bearer " + currentToken);
+        }
+        if (cached != null) {
+            if (cached.getEtag() != null) {
+                request.header("If-None-Match", cached.getEtag());
+            }
+            if (cached.getLastModified() != null) {
+                request.header("If-Modified-Since", cached.getLastModified());
+            }
+        }
+        
+        HttpRequest built = request.build();
+        Timing timing = new Timing(endpoint);
+        RateLimitScheduler quota = switch (endpoint) {
+            case SEARCH -> searchScheduler;
+            case GRAPHQL -> graphQLScheduler;
+            default -> scheduler;
+        };
+        CompletableFuture<HttpResponse<InputStream>> exchange = quota.submit(priority, () -> {
+            // Set again if the scheduler retries after a rate-limit response
+            timing.sentAt = System.nanoTime();
+            return httpClient.sendAsync(built, HttpResponse.BodyHandlers.ofInputStream());
+        });
+        exchange.whenComplete((response, error) -> {
+            if (error != null && !exchange.isCancelled()) {
+                metrics.recordNetworkError();
+            }
+        });
+        return Futures.propagateCancellation(exchange.thenApply(timing::headersReceived).thenApplyAsync(
+                response -> handleResponse(url, body == null, cached, response, decoder, finisher, timing),
+                DECODE_EXECUTOR), exchange);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T, R> R handleResponse(String url, boolean cacheable, ResponseCache.Entry cached,
+                                    HttpResponse<InputStream> response,
+                                    GitHubJsonDecoder.Decoder<T> decoder, BiFunction<T, HttpHeaders, R> finisher,
+                                    Timing timing) {
+        // Closing the body from the timer makes a stalled read fail instead of hanging this thread
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> watchdog = TIMER.schedule(() -> {
+            timedOut.set(true);
+            closeQuietly(response.body());
+        }, readTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        try (TimedInputStream body = new TimedInputStream(response.body())) {
+            int responseCode = response.statusCode();
+            if (responseCode != 200 && responseCode != 304) {
+                metrics.recordStatus(responseCode);
+            }
+            if (responseCode == 304 && cached != null) {
+                responseCache.recordRevalidation();
+                R value = (R) cached.getValue();
+                if (value == null) {
+                    // Entry came from the disk tier; decode it once and keep the object
+                    T decoded = GitHubJsonDecoder.decode(new ByteArrayInputStream(cached.getBody()), decoder);
+                    value = finisher.apply(decoded, response.headers());
+                    cached.setValue(value);
+                }
+                cached.refresh(maxAgeMillis(response));
+                timing.finish(body);
+                return value;
+            } else if (responseCode != 200) {
+                throw new CompletionException(failure(response));
+            }
             
-            GitHubRepository repo = new GitHubRepository(
-                repoJson.get("id").getAsInt(),
-                repoJson.get("name").getAsString(),
-                repoJson.has("description") && !repoJson.get("description").isJsonNull() ? 
-                    repoJson.get("description").getAsString() : null,
-                repoJson.get("html_url").getAsString(),
-                repoJson.get("stargazers_count").getAsInt(),
-                repoJson.get("forks_count").getAsInt(),
-                repoJson.has("language") && !repoJson.get("language").isJsonNull() ? 
-                    repoJson.get("language").getAsString() : null,
-                repoJson.get("updated_at").getAsString()
-            );
+            // Decode straight off the socket unless the disk tier needs the raw bytes
+            byte[] raw = null;
+            T decoded;
+            if (cacheable && responseCache != null && responseCache.hasDiskTier()) {
+                raw = body.readAllBytes();
+                decoded = GitHubJsonDecoder.decode(new ByteArrayInputStream(raw), decoder);
+            } else {
+                decoded = GitHubJsonDecoder.decode(body, decoder);
+            }
+            R value = finisher.apply(decoded, response.headers());
             
-            repositories.add(repo);
+            if (cacheable && responseCache != null) {
+                responseCache.recordMiss();
+                responseCache.put(url,
+                        response.headers().firstValue("ETag").orElse(null),
+                        response.headers().firstValue("Last-Modified").orElse(null),
+                        maxAgeMillis(response),
+                        raw,
+                        value);
+            }
+            timing.finish(body);
+            return value;
+        } catch (IOException e) {
+            throw new CompletionException(timedOut.get()
+                    ? new ApiTimeoutException("Response body not received within " + readTimeout.toMillis() + " ms", e)
+                    : e);
+        } finally {
+            watchdog.cancel(false);
         }
-        
-        return repositories;
     }
     
-    private String makeHttpRequest(String urlString) throws Exception {
-        URL url = new URL(urlString);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        
-        connection.setRequestMethod("GET");
-        connection.setRequestProperty("Accept", "application/vnd.github.v3+json");
-        connection.setRequestProperty("User-Agent", "GitHub-Profile-Explorer");
-        
-        int responseCode = connection.getResponseCode();
-        
-        if (responseCode == 404) {
-            throw new Exception("404 - User not found");
-        } else if (responseCode != 200) {
-            throw new Exception("HTTP Error: " + responseCode);
+    private static GitHubApiException failure(HttpResponse<?> response) {
+        int status = response.statusCode();
+        if (status == 404) {
+            return new UserNotFoundException(response.uri().getPath());
         }
+        HttpHeaders headers = response.headers();
+        boolean quotaExhausted = headers.firstValueAsLong("X-RateLimit-Remaining").orElse(-1) == 0
+                || headers.firstValue("Retry-After").isPresent();
+        if (status == 429 || (status == 403 && quotaExhausted)) {
+            // Still refused after the scheduler's own waiting and retrying
+            return new RateLimitedException(status,
+                    headers.firstValueAsLong("X-RateLimit-Reset").orElse(0));
+        }
+        if (status >= 500) {
+            return new ServerErrorException(status);
+        }
+        return new GitHubApiException("HTTP Error: " + status, status);
+    }
+    
+    private static String emptyToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+    
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException ignored) {
+            // Only closed to unblock a reader
+        }
+    }
+    
+    // Stage timestamps of one request; see ApiMetrics for what each stage covers
+    private final class Timing {
+        final ApiMetrics.Endpoint endpoint;
+        final long queuedAt = System.nanoTime();
+        volatile long sentAt;
+        long headersAt;
         
-        BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-        StringBuilder response = new StringBuilder();
-        String line;
-        
-        while ((line = reader.readLine()) != null) {
-            response.append(line);
+        Timing(ApiMetrics.Endpoint endpoint) {
+            this.endpoint = endpoint;
         }
         
-        reader.close();
-        connection.disconnect();
+        <T> HttpResponse<T> headersReceived(HttpResponse<T> response) {
+            headersAt = System.nanoTime();
+            return response;
+        }
         
-        return response.toString();
+        void finish(TimedInputStream body) {
+            long now = System.nanoTime();
+            long download = body.getReadNanos();
+            metrics.record(endpoint, ApiMetrics.Stage.QUEUE, sentAt - queuedAt);
+            metrics.record(endpoint, ApiMetrics.Stage.FIRST_BYTE, headersAt - sentAt);
+            metrics.record(endpoint, ApiMetrics.Stage.DOWNLOAD, download);
+            metrics.record(endpoint, ApiMetrics.Stage.PARSE, Math.max(0, now - headersAt - download));
+            metrics.record(endpoint, ApiMetrics.Stage.TOTAL, now - queuedAt);
+        }
+    }
+    
+    private static long maxAgeMillis(HttpResponse<?> response) {
+        return response.headers().firstValue("Cache-Control")
+                .map(MAX_AGE::matcher)
+                .filter(Matcher::find)
+                .map(m -> Long.parseLong(m.group(1)) * 1000)
+                .orElse(0L);
+    }
+    
+    // Blocks on an async call and rethrows the original failure rather than the wrapper.
+    static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw e;
+        }
     }
 }
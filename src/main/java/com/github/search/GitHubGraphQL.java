@@ -0,0 +1,290 @@
+package com.github.search;
+
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The GraphQL (v4) query for whole profiles: a user and their first repositories, for many
+ * users in one request.
+ *
+ * Each login becomes an aliased field ({@code u0}, {@code u1}, ...) bound to its own query
+ * variable, so logins are never spliced into the query text. Logins are looked up as
+ * repository owners, so organisations resolve too, as they do on {@code /users/{login}};
+ * an organisation's description stands in for the bio and it has no follower counts. The repository connection asks
+ * for the same list as the REST call (public, owned, most recently updated first) and the
+ * results are decoded straight onto the REST models.
+ */
+public final class GitHubGraphQL {
+    
+    // GitHub limits the nodes a query may return and gives up on queries that run too long,
+    // so batches are sized to stay well clear of both; a refused batch is split anyway
+    static final int MAX_NODES_PER_QUERY = 2_000;
+    static final int MAX_USERS_PER_QUERY = 50;
+    static final int MAX_REPOSITORIES = 100;
+    
+    private static final String PROFILE_FRAGMENT = "fragment profile on RepositoryOwner { login avatarUrl url"
+            + " repositories(first: $repositories, privacy: PUBLIC, ownerAffiliations: OWNER,"
+            + " orderBy: {field: UPDATED_AT, direction: DESC}) { totalCount nodes { databaseId name description"
+            + " url stargazerCount forkCount primaryLanguage { name } updatedAt } }"
+            + " ... on User { name bio location websiteUrl company email createdAt"
+            + " followers { totalCount } following { totalCount } }"
+            + " ... on Organization { name description location websiteUrl email createdAt } }";
+    
+    private GitHubGraphQL() {
+    }
+    
+    /** How many users one query may ask for when each comes with {@code repositoryLimit} repositories. */
+    static int batchSize(int repositoryLimit) {
+        int nodesPerUser = 1 + Math.max(1, Math.min(repositoryLimit, MAX_REPOSITORIES));
+        return Math.max(1, Math.min(MAX_USERS_PER_QUERY, MAX_NODES_PER_QUERY / nodesPerUser));
+    }
+    
+    /** The JSON request body asking for {@code logins} and up to {@code repositoryLimit} repositories each. */
+    static String query(List<String> logins, int repositoryLimit) {
+        StringBuilder query = new StringBuilder("query Profiles($repositories: Int!");
+        for (int i = 0; i < logins.size(); i++) {
+            query.append(", $l").append(i).append(": String!");
+        }
+        query.append(") {");
+        for (int i = 0; i < logins.size(); i++) {
+            query.append(" u").append(i).append(": repositoryOwner(login: $l").append(i).append(") { ...profile }");
+        }
+        query.append(" } ").append(PROFILE_FRAGMENT);
+        
+        JsonObject variables = new JsonObject();
+        // The connection needs at least one; extra rows are dropped while decoding
+        variables.addProperty("repositories", Math.max(1, Math.min(repositoryLimit, MAX_REPOSITORIES)));
+        for (int i = 0; i < logins.size(); i++) {
+            variables.addProperty("l" + i, logins.get(i));
+        }
+        JsonObject body = new JsonObject();
+        body.addProperty("query", query.toString());
+        body.add("variables", variables);
+        return body.toString();
+    }
+    
+    /** Whether a query-level error means the batch was too big and should be sent in smaller parts. */
+    static boolean isTooLarge(String errorType) {
+        // Timeouts come back without a type
+        return errorType == null || "MAX_NODE_LIMIT_EXCEEDED".equals(errorType)
+                || "RESOURCE_LIMITS_EXCEEDED".equals(errorType);
+    }
+    
+    static Batch readBatch(JsonReader reader, int size, int repositoryLimit) throws IOException {
+        Batch batch = new Batch(size);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "data" -> readData(reader, batch, repositoryLimit);
+                case "errors" -> {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        readError(reader, batch);
+                    }
+                    reader.endArray();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return batch;
+    }
+    
+    private static void readData(JsonReader reader, Batch batch, int repositoryLimit) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return;
+        }
+        batch.hasData = true;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int index = aliasIndex(reader.nextName(), batch.profiles.length);
+            if (index < 0) {
+                reader.skipValue();
+            } else if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+            } else {
+                batch.profiles[index] = readProfile(reader, repositoryLimit);
+            }
+        }
+        reader.endObject();
+    }
+    
+    public static GitHubProfile readProfile(JsonReader reader, int repositoryLimit) throws IOException {
+        String login = null, name = null, avatarUrl = null, bio = null, location = null;
+        String blog = null, company = null, email = null, createdAt = null, htmlUrl = null;
+        int publicRepos = 0, followers = 0, following = 0;
+        RepositoryTable repositories = new RepositoryTable(Math.min(repositoryLimit, MAX_REPOSITORIES));
+        
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "login" -> login = GitHubJsonDecoder.nextString(reader);
+                case "name" -> name = GitHubJsonDecoder.nextString(reader);
+                case "avatarUrl" -> avatarUrl = GitHubJsonDecoder.nextString(reader);
+                case "bio" -> bio = GitHubJsonDecoder.nextString(reader);
+                case "description" -> {
+                    String description = GitHubJsonDecoder.nextString(reader);
+                    bio = bio != null ? bio : description;
+                }
+                case "location" -> location = GitHubJsonDecoder.nextString(reader);
+                case "websiteUrl" -> blog = GitHubJsonDecoder.nextString(reader);
+                case "company" -> company = GitHubJsonDecoder.nextString(reader);
+                case "email" -> email = GitHubJsonDecoder.nextString(reader);
+                case "createdAt" -> createdAt = GitHubJsonDecoder.nextString(reader);
+                case "url" -> htmlUrl = GitHubJsonDecoder.nextString(reader);
+                case "followers" -> followers = readTotalCount(reader);
+                case "following" -> following = readTotalCount(reader);
+                case "repositories" -> {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "totalCount" -> publicRepos = GitHubJsonDecoder.nextInt(reader);
+                            case "nodes" -> {
+                                reader.beginArray();
+                                while (reader.hasNext()) {
+                                    GitHubRepository repository = readRepository(reader);
+                                    if (repositories.size() < repositoryLimit) {
+                                        repositories.append(repository);
+                                    }
+                                }
+                                reader.endArray();
+                            }
+                            default -> reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        
+        GitHubUser user = new GitHubUser(login, name, avatarUrl, bio, publicRepos, followers, following,
+                location, blog, company, email, createdAt, htmlUrl);
+        return new GitHubProfile(user, repositories.trim());
+    }
+    
+    private static GitHubRepository readRepository(JsonReader reader) throws IOException {
+        int id = 0, stargazersCount = 0, forksCount = 0;
+        String name = null, description = null, htmlUrl = null, language = null, updatedAt = null;
+        
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "databaseId" -> id = GitHubJsonDecoder.nextInt(reader);
+                case "name" -> name = GitHubJsonDecoder.nextString(reader);
+                case "description" -> description = GitHubJsonDecoder.nextString(reader);
+                case "url" -> htmlUrl = GitHubJsonDecoder.nextString(reader);
+                case "stargazerCount" -> stargazersCount = GitHubJsonDecoder.nextInt(reader);
+                case "forkCount" -> forksCount = GitHubJsonDecoder.nextInt(reader);
+                case "primaryLanguage" -> {
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                    } else {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            if ("name".equals(reader.nextName())) {
+                                language = GitHubJsonDecoder.nextString(reader);
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    }
+                }
+                case "updatedAt" -> updatedAt = GitHubJsonDecoder.nextString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        
+        return new GitHubRepository(id, name, description, htmlUrl, stargazersCount, forksCount,
+                language, updatedAt);
+    }
+    
+    private static int readTotalCount(JsonReader reader) throws IOException {
+        int count = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("totalCount".equals(reader.nextName())) {
+                count = GitHubJsonDecoder.nextInt(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return count;
+    }
+    
+    // Errors about one user carry its alias as the first path element; the rest concern the whole query
+    private static void readError(JsonReader reader, Batch batch) throws IOException {
+        String type = null, message = null, alias = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "type" -> type = GitHubJsonDecoder.nextString(reader);
+                case "message" -> message = GitHubJsonDecoder.nextString(reader);
+                case "path" -> {
+                    reader.beginArray();
+                    if (reader.hasNext() && reader.peek() == JsonToken.STRING) {
+                        alias = reader.nextString();
+                    }
+                    while (reader.hasNext()) {
+                        reader.skipValue();
+                    }
+                    reader.endArray();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        
+        int index = alias != null ? aliasIndex(alias, batch.profiles.length) : -1;
+        if (index >= 0) {
+            batch.errorTypes[index] = type;
+            batch.errorMessages[index] = message;
+        } else if (!batch.hasQueryError) {
+            batch.hasQueryError = true;
+            batch.queryErrorType = type;
+            batch.queryErrorMessage = message;
+        }
+    }
+    
+    private static int aliasIndex(String alias, int size) {
+        if (alias.length() < 2 || alias.charAt(0) != 'u') {
+            return -1;
+        }
+        try {
+            int index = Integer.parseInt(alias, 1, alias.length(), 10);
+            return index < size ? index : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    /** One decoded response, indexed like the logins of the query. */
+    static final class Batch {
+        final GitHubProfile[] profiles;
+        final String[] errorTypes;
+        final String[] errorMessages;
+        boolean hasData;
+        boolean hasQueryError;
+        String queryErrorType;
+        String queryErrorMessage;
+        
+        Batch(int size) {
+            profiles = new GitHubProfile[size];
+            errorTypes = new String[size];
+            errorMessages = new String[size];
+        }
+        
+        /** The whole query was refused, e.g. for its size or because it timed out. */
+        boolean failed() {
+            return hasQueryError && !hasData;
+        }
+    }
+}
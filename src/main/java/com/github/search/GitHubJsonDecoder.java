@@ -0,0 +1,213 @@
+package com.github.search;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes GitHub REST payloads into the model classes.
+ *
+ * The streaming methods read straight from the response stream in a single pass and
+ * skip every field the models do not use, so neither the body string nor a JSON tree
+ * is ever built. The {@code *Tree} methods are the original DOM-based decoding, kept
+ * as the reference path for the benchmarks.
+ */
+public final class GitHubJsonDecoder {
+    
+    private static final Gson GSON = new Gson();
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    private GitHubJsonDecoder() {
+    }
+    
+    @FunctionalInterface
+    public interface Decoder<T> {
+        T decode(JsonReader reader) throws IOException;
+    }
+    
+    public static <T> T decode(InputStream body, Decoder<T> decoder) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            return decoder.decode(reader);
+        }
+    }
+    
+    public static GitHubUser readUser(JsonReader reader) throws IOException {
+        String login = null, name = null, avatarUrl = null, bio = null, location = null;
+        String blog = null, company = null, email = null, createdAt = null, htmlUrl = null;
+        int publicRepos = 0, followers = 0, following = 0;
+        
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "login" -> login = nextString(reader);
+                case "name" -> name = nextString(reader);
+                case "avatar_url" -> avatarUrl = nextString(reader);
+                case "bio" -> bio = nextString(reader);
+                case "public_repos" -> publicRepos = nextInt(reader);
+                case "followers" -> followers = nextInt(reader);
+                case "following" -> following = nextInt(reader);
+                case "location" -> location = nextString(reader);
+                case "blog" -> blog = nextString(reader);
+                case "company" -> company = nextString(reader);
+                case "email" -> email = nextString(reader);
+                case "created_at" -> createdAt = nextString(reader);
+                case "html_url" -> htmlUrl = nextString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        
+        return new GitHubUser(login, name, avatarUrl, bio, publicRepos, followers, following,
+                location, blog, company, email, createdAt, htmlUrl);
+    }
+    
+    public static List<GitHubRepository> readRepositories(JsonReader reader) throws IOException {
+        // Held column by column; these lists end up in the caches
+        RepositoryTable repositories = new RepositoryTable(MAX_PAGE_SIZE);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            repositories.append(readRepository(reader));
+        }
+        reader.endArray();
+        return repositories.trim();
+    }
+    
+    public static GitHubRepository readRepository(JsonReader reader) throws IOException {
+        int id = 0, stargazersCount = 0, forksCount = 0;
+        String name = null, description = null, htmlUrl = null, language = null, updatedAt = null;
+        
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id" -> id = nextInt(reader);
+                case "name" -> name = nextString(reader);
+                case "description" -> description = nextString(reader);
+                case "html_url" -> htmlUrl = nextString(reader);
+                case "stargazers_count" -> stargazersCount = nextInt(reader);
+                case "forks_count" -> forksCount = nextInt(reader);
+                case "language" -> language = nextString(reader);
+                case "updated_at" -> updatedAt = nextString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        
+        return new GitHubRepository(id, name, description, htmlUrl, stargazersCount, forksCount,
+                language, updatedAt);
+    }
+    
+    public static List<GitHubAccount> readAccounts(JsonReader reader) throws IOException {
+        List<GitHubAccount> accounts = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            long id = 0;
+            String login = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id" -> id = reader.nextLong();
+                    case "login" -> login = nextString(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            accounts.add(new GitHubAccount(id, login));
+        }
+        reader.endArray();
+        return accounts;
+    }
+    
+    public static UserSearchResult readUserSearch(JsonReader reader) throws IOException {
+        int totalCount = 0;
+        boolean incomplete = false;
+        List<GitHubAccount> accounts = List.of();
+        
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "total_count" -> totalCount = nextInt(reader);
+                case "incomplete_results" -> incomplete = reader.nextBoolean();
+                case "items" -> accounts = readAccounts(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new UserSearchResult(totalCount, incomplete, accounts);
+    }
+    
+    static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+    
+    static int nextInt(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return 0;
+        }
+        return reader.nextInt();
+    }
+    
+    public static GitHubUser parseUserTree(String response) {
+        JsonObject userJson = GSON.fromJson(response, JsonObject.class);
+        
+        return new GitHubUser(
+            userJson.get("login").getAsString(),
+            userJson.has("name") && !userJson.get("name").isJsonNull() ?
+                userJson.get("name").getAsString() : null,
+            userJson.get("avatar_url").getAsString(),
+            userJson.has("bio") && !userJson.get("bio").isJsonNull() ?
+                userJson.get("bio").getAsString() : null,
+            userJson.get("public_repos").getAsInt(),
+            userJson.get("followers").getAsInt(),
+            userJson.get("following").getAsInt(),
+            userJson.has("location") && !userJson.get("location").isJsonNull() ?
+                userJson.get("location").getAsString() : null,
+            userJson.has("blog") && !userJson.get("blog").isJsonNull() ?
+                userJson.get("blog").getAsString() : null,
+            userJson.has("company") && !userJson.get("company").isJsonNull() ?
+                userJson.get("company").getAsString() : null,
+            userJson.has("email") && !userJson.get("email").isJsonNull() ?
+                userJson.get("email").getAsString() : null,
+            userJson.get("created_at").getAsString(),
+            userJson.get("html_url").getAsString()
+        );
+    }
+    
+    public static List<GitHubRepository> parseRepositoriesTree(String response) {
+        JsonArray reposArray = GSON.fromJson(response, JsonArray.class);
+        List<GitHubRepository> repositories = new ArrayList<>();
+        
+        for (int i = 0; i < reposArray.size(); i++) {
+            JsonObject repoJson = reposArray.get(i).getAsJsonObject();
+            
+            GitHubRepository repo = new GitHubRepository(
+                repoJson.get("id").getAsInt(),
+                repoJson.get("name").getAsString(),
+                repoJson.has("description") && !repoJson.get("description").isJsonNull() ?
+                    repoJson.get("description").getAsString() : null,
+                repoJson.get("html_url").getAsString(),
+                repoJson.get("stargazers_count").getAsInt(),
+                repoJson.get("forks_count").getAsInt(),
+                repoJson.has("language") && !repoJson.get("language").isJsonNull() ?
+                    repoJson.get("language").getAsString() : null,
+                repoJson.get("updated_at").getAsString()
+            );
+            
+            repositories.add(repo);
+        }
+        
+        return repositories;
+    }
+}
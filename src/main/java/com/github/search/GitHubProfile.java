@@ -0,0 +1,18 @@
+package com.github.search;
+
+import java.util.List;
+
+/** A user together with their most recently updated repositories. */
+public final class GitHubProfile {
+    private final GitHubUser user;
+    private final List<GitHubRepository> repositories;
+    
+    public GitHubProfile(GitHubUser user, List<GitHubRepository> repositories) {
+        this.user = user;
+        this.repositories = repositories;
+    }
+    
+    // Getters
+    public GitHubUser getUser() { return user; }
+    public List<GitHubRepository> getRepositories() { return repositories; }
+}
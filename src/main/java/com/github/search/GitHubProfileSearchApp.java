@@ -14,11 +14,29 @@ import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 import javafx.concurrent.Task;
 import javafx.application.Platform;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class GitHubProfileSearchApp extends Application {
     
     private GitHubApiService apiService;
+    private ProfileCache profileCache;
+    private LocalProfileStore profileStore;
+    private AvatarCache avatarCache;
     private UserHistoryService historyService;
+    private final LoginIndex loginIndex = new LoginIndex();
+    private UserSearch userSearch;
+    private javafx.stage.Popup suggestionsPopup;
+    private ListView<String> suggestionsList;
+    private ApiMetrics metrics;
+    private DiagnosticsWindow diagnosticsWindow;
+    // Completes once the fields above are set, which happens off the FX thread after the window is up
+    private final java.util.concurrent.CompletableFuture<Void> servicesReady = new java.util.concurrent.CompletableFuture<>();
+    private boolean searchQueued;
     private VBox mainContainer;
     private TextField searchField;
     private Button searchButton;
@@ -26,11 +44,47 @@ public class GitHubProfileSearchApp extends Application {
     private VBox sidebarArea;
     private HBox mainLayout;
     
+    // All background work runs here; each search bumps the generation so late results
+    // from superseded searches are dropped and their requests cancelled.
+    private final ExecutorService backgroundExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong searchGeneration = new AtomicLong();
+    
+    private static final int AVATAR_SIZE = 120;
+    private static final long AVATAR_CACHE_PIXEL_BYTES = 32L * 1024 * 1024;
+    private static final long AVATAR_CACHE_DISK_BYTES = 64L * 1024 * 1024;
+    private static final int SUGGESTION_ROWS = 8;
+    private static final double SUGGESTION_ROW_HEIGHT = 28;
+    private static final double SEARCH_WEIGHT = 1.0;
+    private static final double FAVORITE_WEIGHT = 3.0;
+    private Task<?> activeSearchTask;
+    private Task<?> activeRepoTask;
+    // Repositories that arrived before their profile card was on screen (FX thread only)
+    private long displayedGeneration;
+    private java.util.List<GitHubRepository> pendingRepositories;
+    // Repository table paging (FX thread only): more pages are fetched as rows near the end scroll into view
+    private static final int REPOSITORY_PAGE_SIZE = 100;
+    private static final int REPOSITORY_LOAD_AHEAD = 20;
+    private String displayedLogin;
+    private RepositoryPages repositoryPages;
+    private boolean loadingRepositories;
+    private javafx.collections.ObservableList<GitHubRepository> repositoryItems;
+    private java.util.Set<Integer> shownRepositoryIds;
+    private Label repositoryStatus;
+    // Aggregates over every repository loaded into the table, refreshed as pages arrive
+    private static final int INSIGHTS_TOP_COUNT = 3;
+    private static final int INSIGHTS_LANGUAGE_COUNT = 5;
+    private static final int REPOSITORY_ANALYSE_CONCURRENCY = 4;
+    private RepositoryAnalytics repositoryAnalytics;
+    private boolean loadAllRepositories;
+    private Label insightsTotals;
+    private Label insightsLanguages;
+    private Label insightsTopStarred;
+    private Label insightsRecency;
+    
     @Override
     public void start(Stage primaryStage) {
-        apiService = new GitHubApiService();
-        historyService = new UserHistoryService();
-        
+        // Only the window is built here; the services and everything stored on disk are opened
+        // in the background once it is showing (see openServices)
         primaryStage.setTitle("GitHub Profile Explorer");
         
         // Create main container
@@ -38,9 +92,8 @@ public class GitHubProfileSearchApp extends Application {
         mainContainer.setPadding(new Insets(30));
         mainContainer.setAlignment(Pos.TOP_CENTER);
         
-        // Set gradient background
-        String gradientStyle = "-fx-background-color: linear-gradient(to bottom right, #581c87, #1e3a8a, #312e81);";
-        mainContainer.setStyle(gradientStyle);
+        // Gradient background (styles.css)
+        mainContainer.getStyleClass().add("app-root");
         
         // Create header
         createHeader();
@@ -69,9 +122,83 @@ public class GitHubProfileSearchApp extends Application {
         
         // Create scene
         Scene scene = new Scene(new ScrollPane(mainContainer), 1200, 800);
+        scene.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm());
+        
+        // F12 shows request and render timings
+        scene.setOnKeyPressed(e -> {
+            if (e.getCode() == javafx.scene.input.KeyCode.F12 && servicesOpen()) {
+                if (diagnosticsWindow == null) {
+                    diagnosticsWindow = new DiagnosticsWindow(metrics, primaryStage);
+                }
+                diagnosticsWindow.toggle();
+            }
+        });
         
         primaryStage.setScene(scene);
         primaryStage.show();
+        if (StartupTrace.isEnabled()) {
+            // The first pulse after show lays the window out and draws it
+            scene.addPostLayoutPulseListener(() -> StartupTrace.mark("first-frame"));
+            searchField.setText(StartupTrace.getLogin());
+            performSearch();
+        }
+        backgroundExecutor.submit(this::openServices);
+    }
+    
+    @Override
+    public void stop() {
+        backgroundExecutor.shutdownNow();
+        if (!servicesOpen()) {
+            return;
+        }
+        userSearch.close();
+        historyService.flush();
+        if (profileStore != null) {
+            profileStore.close();
+        }
+    }
+    
+    // Runs on a background thread: nothing here is needed to draw the window, and some of it
+    // (the HTTP client, JMX, the memory-mapped store, the history files) takes a while
+    private void openServices() {
+        try {
+            apiService = new GitHubApiService(new ResponseCache(256, java.nio.file.Paths.get("http_cache")));
+            try {
+                profileStore = new LocalProfileStore(java.nio.file.Paths.get("profile_store"));
+            } catch (java.io.IOException e) {
+                System.err.println("Failed to open profile store: " + e.getMessage());
+            }
+            profileCache = new ProfileCache(apiService, profileStore);
+            metrics = apiService.getMetrics();
+            metrics.register();
+            avatarCache = new AvatarCache(GitHubApiService.sharedHttpClient(), java.nio.file.Paths.get("avatar_cache"),
+                    AVATAR_CACHE_PIXEL_BYTES, AVATAR_CACHE_DISK_BYTES, backgroundExecutor);
+            historyService = new UserHistoryService();
+            userSearch = new UserSearch(apiService, loginIndex, Platform::runLater, this::showSuggestions);
+            seedLoginIndex();
+        } catch (RuntimeException e) {
+            servicesReady.completeExceptionally(e);
+            Platform.runLater(() -> {
+                resetSearchButton();
+                showAlert("Could not start: " + e.getMessage());
+            });
+            return;
+        }
+        servicesReady.complete(null);
+        StartupTrace.mark("services");
+        Platform.runLater(() -> {
+            if (searchQueued) {
+                searchQueued = false;
+                performSearch();
+            } else if (!StartupTrace.isEnabled()) {
+                // Warm start: reopen the last profile from the local store; it refreshes in the background
+                showLastProfile();
+            }
+        });
+    }
+    
+    private boolean servicesOpen() {
+        return servicesReady.isDone() && !servicesReady.isCompletedExceptionally();
     }
     
     private void createHeader() {
@@ -98,81 +225,257 @@ public class GitHubProfileSearchApp extends Application {
         searchField = new TextField();
         searchField.setPromptText("Search GitHub username...");
         searchField.setPrefHeight(40);
-        searchField.setStyle("-fx-background-color: rgba(139, 92, 246, 0.5); " +
-                           "-fx-text-fill: white; " +
-                           "-fx-prompt-text-fill: #c4b5fd; " +
-                           "-fx-border-color: #7c3aed; " +
-                           "-fx-border-radius: 8; " +
-                           "-fx-background-radius: 8;");
+        searchField.getStyleClass().add("search-field");
         HBox.setHgrow(searchField, Priority.ALWAYS);
         
         searchButton = new Button("Search");
         searchButton.setPrefHeight(40);
-        searchButton.setStyle("-fx-background-color: #7c3aed; " +
-                            "-fx-text-fill: white; " +
-                            "-fx-border-radius: 8; " +
-                            "-fx-background-radius: 8; " +
-                            "-fx-font-weight: bold;");
+        searchButton.getStyleClass().add("search-button");
         
         // Add search functionality
         searchButton.setOnAction(e -> performSearch());
         searchField.setOnAction(e -> performSearch());
         
+        // Typeahead: logins seen before straight away, then matches from GitHub's user search.
+        // The dropdown is a ListView, so only the visible rows are built however many come back.
+        suggestionsList = new ListView<>();
+        suggestionsList.setFixedCellSize(SUGGESTION_ROW_HEIGHT);
+        suggestionsList.getStyleClass().add("suggestions");
+        suggestionsList.getStylesheets().add(getClass().getResource("/styles.css").toExternalForm());
+        suggestionsList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(String login, boolean empty) {
+                super.updateItem(login, empty);
+                boolean favorite = login != null && servicesOpen() && historyService.isFavorite(login);
+                setText(empty || login == null ? null : favorite ? "⭐ " + login : login);
+            }
+        });
+        suggestionsList.setOnMouseClicked(e -> {
+            String login = suggestionsList.getSelectionModel().getSelectedItem();
+            if (login != null) {
+                chooseSuggestion(login);
+            }
+        });
+        suggestionsPopup = new javafx.stage.Popup();
+        suggestionsPopup.setAutoHide(true);
+        suggestionsPopup.getContent().add(suggestionsList);
+        
+        searchField.textProperty().addListener((obs, oldText, newText) -> {
+            // Typeahead starts once the services are open; typing before that just fills the field
+            if (searchField.isFocused() && servicesOpen()) {
+                userSearch.update(newText);
+            }
+        });
+        searchField.addEventFilter(javafx.scene.input.KeyEvent.KEY_PRESSED, this::handleSuggestionKey);
+        searchField.focusedProperty().addListener((obs, wasFocused, focused) -> {
+            if (!focused) {
+                hideSuggestions();
+            }
+        });
+        
         searchForm.getChildren().addAll(searchField, searchButton);
         mainContainer.getChildren().add(searchForm);
     }
     
+    private void seedLoginIndex() {
+        java.util.List<String> history = historyService.getHistory();
+        // History is newest first; give older entries a smaller weight so the order survives
+        for (int i = history.size() - 1; i >= 0; i--) {
+            loginIndex.record(history.get(i), SEARCH_WEIGHT / (i + 1));
+        }
+        for (String favorite : historyService.getFavorites()) {
+            loginIndex.record(favorite, FAVORITE_WEIGHT);
+        }
+        java.util.List<String> known = new java.util.ArrayList<>(profileCache.getUserCache().keys());
+        if (profileStore != null) {
+            known.addAll(profileStore.logins());
+        }
+        loginIndex.addAll(known);
+    }
+    
+    private void showLastProfile() {
+        java.util.List<String> history = historyService.getHistory();
+        if (profileStore == null || history.isEmpty() || profileStore.getUser(history.get(0)) == null) {
+            return;
+        }
+        searchField.setText(history.get(0));
+        performSearch();
+    }
+    
+    // Called on the FX thread by UserSearch, first with what is known locally and again when GitHub answers
+    private void showSuggestions(String query, java.util.List<String> logins, boolean pending) {
+        if (!searchField.isFocused() || !query.equals(searchField.getText().trim()) || logins.isEmpty()
+                || (logins.size() == 1 && logins.get(0).equalsIgnoreCase(query))) {
+            suggestionsPopup.hide();
+            return;
+        }
+        suggestionsList.getItems().setAll(logins);
+        suggestionsList.setPrefSize(searchField.getWidth(),
+                Math.min(logins.size(), SUGGESTION_ROWS) * SUGGESTION_ROW_HEIGHT + 2);
+        if (!suggestionsPopup.isShowing()) {
+            javafx.geometry.Bounds field = searchField.localToScreen(searchField.getBoundsInLocal());
+            suggestionsPopup.show(searchField, field.getMinX(), field.getMaxY());
+        }
+    }
+    
+    private void handleSuggestionKey(javafx.scene.input.KeyEvent event) {
+        if (!suggestionsPopup.isShowing()) {
+            return;
+        }
+        MultipleSelectionModel<String> selection = suggestionsList.getSelectionModel();
+        int last = suggestionsList.getItems().size() - 1;
+        switch (event.getCode()) {
+            case DOWN -> selection.select(Math.min(selection.getSelectedIndex() + 1, last));
+            case UP -> selection.select(Math.max(selection.getSelectedIndex() - 1, 0));
+            case ESCAPE -> hideSuggestions();
+            case ENTER -> {
+                if (selection.getSelectedItem() == null) {
+                    return;
+                }
+                chooseSuggestion(selection.getSelectedItem());
+            }
+            default -> {
+                return;
+            }
+        }
+        suggestionsList.scrollTo(Math.max(0, selection.getSelectedIndex()));
+        event.consume();
+    }
+    
+    private void chooseSuggestion(String login) {
+        searchField.setText(login);
+        searchField.positionCaret(login.length());
+        performSearch();
+    }
+    
+    private void hideSuggestions() {
+        if (servicesOpen()) {
+            userSearch.cancel();
+        }
+        suggestionsPopup.hide();
+        suggestionsList.getSelectionModel().clearSelection();
+    }
+    
     private void performSearch() {
+        hideSuggestions();
         String username = searchField.getText().trim();
         if (username.isEmpty()) {
             showAlert("Please enter a username to search.");
             return;
         }
+        if (!servicesReady.isDone()) {
+            // Still starting up: openServices runs the search when it is done
+            searchQueued = true;
+            searchButton.setDisable(true);
+            searchButton.setText("Starting...");
+            return;
+        }
+        if (servicesReady.isCompletedExceptionally()) {
+            showAlert("The app could not start; please restart it.");
+            return;
+        }
         
-        searchButton.setDisabled(true);
+        long generation = searchGeneration.incrementAndGet();
+        cancelActiveTasks();
+        pendingRepositories = null;
+        
+        searchButton.setDisable(true);
         searchButton.setText("Searching...");
         
-        Task<GitHubUser> searchTask = new Task<GitHubUser>() {
-            @Override
-            protected GitHubUser call() throws Exception {
-                return apiService.getUser(username);
+        // Profile and repositories are requested together rather than one after the other:
+        // in one GraphQL query when that is enabled, otherwise as two REST calls where a
+        // missing user cancels the repository request.
+        java.util.concurrent.CompletableFuture<GitHubUser> userFuture;
+        java.util.concurrent.CompletableFuture<java.util.List<GitHubRepository>> reposFuture;
+        if (apiService.isGraphQLEnabled()) {
+            java.util.concurrent.CompletableFuture<GitHubProfile> profileFuture =
+                    profileCache.getProfileAsync(username, 6);
+            userFuture = Futures.propagateCancellation(profileFuture.thenApply(GitHubProfile::getUser), profileFuture);
+            reposFuture = profileFuture.thenApply(GitHubProfile::getRepositories);
+        } else {
+            userFuture = profileCache.getUserAsync(username);
+            reposFuture = profileCache.getUserRepositoriesAsync(username, 6);
+        }
+        userFuture.whenComplete((user, error) -> {
+            if (error != null) {
+                reposFuture.cancel(true);
             }
-            
+        });
+        
+        Task<GitHubUser> searchTask = new AsyncTask<GitHubUser>(() -> userFuture) {
             @Override
             protected void succeeded() {
                 Platform.runLater(() -> {
+                    if (generation != searchGeneration.get()) {
+                        return;
+                    }
                     GitHubUser user = getValue();
                     if (user != null) {
-                        displayUser(user);
+                        displayUser(user, generation);
                         historyService.addToHistory(username);
+                        loginIndex.record(user.getLogin() != null ? user.getLogin() : username, SEARCH_WEIGHT);
                         updateSidebar();
                     }
                     resetSearchButton();
+                    if (StartupTrace.isEnabled()) {
+                        StartupTrace.finish("first-search");
+                    }
                 });
             }
             
             @Override
             protected void failed() {
                 Platform.runLater(() -> {
+                    if (generation != searchGeneration.get()) {
+                        return;
+                    }
                     Throwable exception = getException();
-                    String message = exception.getMessage();
-                    if (message.contains("404")) {
+                    if (StartupTrace.isEnabled()) {
+                        System.err.println("Startup search failed: " + exception);
+                        StartupTrace.finish("search-failed");
+                        return;
+                    }
+                    if (exception instanceof UserNotFoundException) {
                         showAlert("User not found: " + username);
+                    } else if (exception instanceof RateLimitedException limited && limited.getResetEpochSeconds() > 0) {
+                        LocalTime reset = LocalTime.ofInstant(Instant.ofEpochSecond(limited.getResetEpochSeconds()),
+                                ZoneId.systemDefault());
+                        showAlert("GitHub rate limit reached; it resets at " + reset.withNano(0) + ".");
+                    } else if (exception instanceof RateLimitedException) {
+                        showAlert("GitHub rate limit reached. Please try again later.");
+                    } else if (exception instanceof CircuitOpenException) {
+                        showAlert("GitHub is not responding right now. Please try again in a little while.");
+                    } else if (exception instanceof ApiTimeoutException) {
+                        showAlert("GitHub took too long to respond. Please try again.");
                     } else {
-                        showAlert("Error fetching user data: " + message);
+                        showAlert("Error fetching user data: " + exception.getMessage());
                     }
                     resetSearchButton();
                 });
             }
         };
         
-        Thread searchThread = new Thread(searchTask);
-        searchThread.setDaemon(true);
-        searchThread.start();
+        activeSearchTask = searchTask;
+        backgroundExecutor.submit(searchTask);
+        loadUserRepositories(userFuture, reposFuture, generation);
+    }
+    
+    private void cancelActiveTasks() {
+        if (repositoryPages != null) {
+            repositoryPages.close();
+            repositoryPages = null;
+        }
+        loadingRepositories = false;
+        if (activeSearchTask != null) {
+            activeSearchTask.cancel(true);
+        }
+        if (activeRepoTask != null) {
+            activeRepoTask.cancel(true);
+        }
     }
     
     private void resetSearchButton() {
-        searchButton.setDisabled(false);
+        searchButton.setDisable(false);
         searchButton.setText("Search");
     }
     
@@ -181,11 +484,7 @@ public class GitHubProfileSearchApp extends Application {
         
         VBox emptyState = new VBox(20);
         emptyState.setAlignment(Pos.CENTER);
-        emptyState.setStyle("-fx-background-color: rgba(139, 92, 246, 0.3); " +
-                          "-fx-border-color: #7c3aed; " +
-                          "-fx-border-radius: 15; " +
-                          "-fx-background-radius: 15; " +
-                          "-fx-padding: 60;");
+        emptyState.getStyleClass().addAll("panel", "empty-state");
         emptyState.setMaxWidth(400);
         
         Label iconLabel = new Label("🐙");
@@ -203,23 +502,26 @@ public class GitHubProfileSearchApp extends Application {
         contentArea.getChildren().add(emptyState);
     }
     
-    private void displayUser(GitHubUser user) {
+    private void displayUser(GitHubUser user, long generation) {
+        long start = System.nanoTime();
         contentArea.getChildren().clear();
         sidebarArea.setVisible(true);
         
         VBox userCard = createUserCard(user);
         contentArea.getChildren().add(userCard);
+        metrics.recordRender(ApiMetrics.View.USER, System.nanoTime() - start);
         
-        loadUserRepositories(user.getLogin());
+        displayedGeneration = generation;
+        displayedLogin = user.getLogin();
+        if (pendingRepositories != null) {
+            displayRepositories(pendingRepositories);
+            pendingRepositories = null;
+        }
     }
     
     private VBox createUserCard(GitHubUser user) {
         VBox card = new VBox(20);
-        card.setStyle("-fx-background-color: rgba(139, 92, 246, 0.3); " +
-                     "-fx-border-color: #7c3aed; " +
-                     "-fx-border-radius: 15; " +
-                     "-fx-background-radius: 15; " +
-                     "-fx-padding: 30;");
+        card.getStyleClass().add("panel");
         
         HBox userInfo = new HBox(30);
         userInfo.setAlignment(Pos.CENTER_LEFT);
@@ -228,23 +530,25 @@ public class GitHubProfileSearchApp extends Application {
         VBox avatarBox = new VBox();
         avatarBox.setAlignment(Pos.CENTER);
         ImageView avatar = new ImageView();
-        try {
-            avatar.setImage(new Image(user.getAvatarUrl()));
-            avatar.setFitWidth(120);
-            avatar.setFitHeight(120);
-            avatar.setStyle("-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.3), 10, 0, 0, 0);");
-        } catch (Exception e) {
-            // Fallback to emoji if image fails
+        avatar.setFitWidth(AVATAR_SIZE);
+        avatar.setFitHeight(AVATAR_SIZE);
+        avatar.getStyleClass().add("avatar");
+        
+        Image cachedAvatar = avatarCache.getIfPresent(user.getAvatarUrl(), AVATAR_SIZE);
+        if (cachedAvatar != null) {
+            avatar.setImage(cachedAvatar);
+            avatarBox.getChildren().add(avatar);
+        } else {
+            // Placeholder (also the fallback if the image fails) until the avatar is decoded
             Label avatarFallback = new Label("👤");
             avatarFallback.setFont(Font.font(80));
-            avatarFallback.setStyle("-fx-background-color: rgba(124, 58, 237, 0.5); " +
-                                  "-fx-background-radius: 50; " +
-                                  "-fx-padding: 20;");
+            avatarFallback.getStyleClass().add("avatar-fallback");
             avatarBox.getChildren().add(avatarFallback);
-        }
-        
-        if (avatar.getImage() != null) {
-            avatarBox.getChildren().add(avatar);
+            
+            avatarCache.load(user.getAvatarUrl(), AVATAR_SIZE).thenAccept(image -> Platform.runLater(() -> {
+                avatar.setImage(image);
+                avatarBox.getChildren().setAll(avatar);
+            }));
         }
         
         // User details
@@ -323,124 +627,293 @@ public class GitHubProfileSearchApp extends Application {
         return statBox;
     }
     
-    private void loadUserRepositories(String username) {
-        Task<java.util.List<GitHubRepository>> repoTask = new Task<java.util.List<GitHubRepository>>() {
-            @Override
-            protected java.util.List<GitHubRepository> call() throws Exception {
-                return apiService.getUserRepositories(username, 6);
-            }
-            
+    private void loadUserRepositories(java.util.concurrent.CompletableFuture<GitHubUser> userFuture,
+                                      java.util.concurrent.CompletableFuture<java.util.List<GitHubRepository>> reposFuture,
+                                      long generation) {
+        Task<java.util.List<GitHubRepository>> repoTask = new AsyncTask<java.util.List<GitHubRepository>>(
+                () -> Futures.propagateCancellation(userFuture.thenCombine(reposFuture, (user, repos) -> repos),
+                        reposFuture)) {
             @Override
             protected void succeeded() {
                 Platform.runLater(() -> {
+                    if (generation != searchGeneration.get()) {
+                        return;
+                    }
                     java.util.List<GitHubRepository> repos = getValue();
-                    displayRepositories(repos);
+                    if (displayedGeneration == generation) {
+                        displayRepositories(repos);
+                    } else {
+                        pendingRepositories = repos;
+                    }
                 });
             }
             
             @Override
             protected void failed() {
                 Platform.runLater(() -> {
+                    if (userFuture.isCompletedExceptionally()) {
+                        // Already reported by the profile request
+                        return;
+                    }
                     System.err.println("Failed to load repositories: " + getException().getMessage());
                 });
             }
         };
         
-        Thread repoThread = new Thread(repoTask);
-        repoThread.setDaemon(true);
-        repoThread.start();
+        activeRepoTask = repoTask;
+        backgroundExecutor.submit(repoTask);
     }
     
     private void displayRepositories(java.util.List<GitHubRepository> repositories) {
+        long start = System.nanoTime();
         VBox repoSection = new VBox(15);
-        repoSection.setStyle("-fx-background-color: rgba(139, 92, 246, 0.3); " +
-                           "-fx-border-color: #7c3aed; " +
-                           "-fx-border-radius: 15; " +
-                           "-fx-background-radius: 15; " +
-                           "-fx-padding: 30;");
-        
-        Label repoTitle = new Label("📚 Recent Repositories");
-        repoTitle.setFont(Font.font("System", FontWeight.BOLD, 20));
-        repoTitle.setTextFill(Color.WHITE);
-        
-        GridPane repoGrid = new GridPane();
-        repoGrid.setHgap(15);
-        repoGrid.setVgap(15);
-        
-        int col = 0, row = 0;
-        for (GitHubRepository repo : repositories) {
-            VBox repoCard = createRepositoryCard(repo);
-            repoGrid.add(repoCard, col, row);
+        repoSection.getStyleClass().add("panel");
+        
+        Label repoTitle = new Label("📚 Repositories");
+        repoTitle.getStyleClass().add("section-title");
+        
+        repositoryStatus = new Label();
+        repositoryStatus.getStyleClass().add("repository-status");
+        
+        // Cells are reused as rows scroll, so memory stays flat however many repositories are loaded
+        TableView<GitHubRepository> table = new TableView<>();
+        table.getStyleClass().add("repository-table");
+        table.setFixedCellSize(32);
+        table.setPrefHeight(440);
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        table.setPlaceholder(new Label("No public repositories"));
+        
+        TableColumn<GitHubRepository, String> nameColumn = new TableColumn<>("Name");
+        nameColumn.setCellValueFactory(cell -> new javafx.beans.property.ReadOnlyStringWrapper(cell.getValue().getName()));
+        nameColumn.setCellFactory(column -> new TableCell<>() {
+            {
+                getStyleClass().add("repository-name");
+            }
             
-            col++;
-            if (col >= 2) {
-                col = 0;
-                row++;
+            @Override
+            protected void updateItem(String name, boolean empty) {
+                super.updateItem(name, empty);
+                setText(empty ? null : name);
             }
-        }
+        });
+        nameColumn.setPrefWidth(200);
+        
+        TableColumn<GitHubRepository, String> descriptionColumn = new TableColumn<>("Description");
+        descriptionColumn.setCellValueFactory(cell ->
+                new javafx.beans.property.ReadOnlyStringWrapper(cell.getValue().getDescription()));
+        descriptionColumn.setPrefWidth(320);
+        
+        TableColumn<GitHubRepository, String> languageColumn = new TableColumn<>("Language");
+        languageColumn.setCellValueFactory(cell ->
+                new javafx.beans.property.ReadOnlyStringWrapper(cell.getValue().getLanguage()));
+        languageColumn.setPrefWidth(110);
+        
+        TableColumn<GitHubRepository, Integer> starsColumn = new TableColumn<>("⭐ Stars");
+        starsColumn.setCellValueFactory(cell ->
+                new javafx.beans.property.ReadOnlyObjectWrapper<>(cell.getValue().getStargazersCount()));
+        starsColumn.setPrefWidth(80);
+        
+        TableColumn<GitHubRepository, Integer> forksColumn = new TableColumn<>("🍴 Forks");
+        forksColumn.setCellValueFactory(cell ->
+                new javafx.beans.property.ReadOnlyObjectWrapper<>(cell.getValue().getForksCount()));
+        forksColumn.setPrefWidth(80);
+        
+        TableColumn<GitHubRepository, String> updatedColumn = new TableColumn<>("Updated");
+        updatedColumn.setCellValueFactory(cell -> {
+            // ISO date part, e.g. 2024-05-01
+            String updated = cell.getValue().getUpdatedAt();
+            return new javafx.beans.property.ReadOnlyStringWrapper(updated != null ? updated.substring(0, 10) : null);
+        });
+        updatedColumn.setPrefWidth(100);
+        
+        table.getColumns().addAll(java.util.List.of(nameColumn, descriptionColumn, languageColumn,
+                starsColumn, forksColumn, updatedColumn));
+        
+        // Sorting happens in a SortedList view so pages appended later land in sort order
+        repositoryItems = javafx.collections.FXCollections.observableArrayList();
+        shownRepositoryIds = new java.util.HashSet<>();
+        repositoryAnalytics = new RepositoryAnalytics();
+        loadAllRepositories = false;
+        javafx.collections.transformation.SortedList<GitHubRepository> sorted =
+                new javafx.collections.transformation.SortedList<>(repositoryItems);
+        sorted.comparatorProperty().bind(table.comparatorProperty());
+        table.setItems(sorted);
+        appendRepositories(repositories);
+        
+        long generation = displayedGeneration;
+        table.setRowFactory(view -> {
+            TableRow<GitHubRepository> row = new TableRow<>() {
+                @Override
+                protected void updateItem(GitHubRepository repository, boolean empty) {
+                    super.updateItem(repository, empty);
+                    // Only visible rows are updated, so this fires when the table first renders with
+                    // empty rows or few repositories, and again as the user scrolls toward the end
+                    if (empty || getIndex() >= getTableView().getItems().size() - REPOSITORY_LOAD_AHEAD) {
+                        loadMoreRepositories(generation);
+                    }
+                }
+            };
+            row.setOnMouseClicked(e -> {
+                if (!row.isEmpty() && e.getClickCount() == 2) {
+                    openRepository(row.getItem());
+                }
+            });
+            return row;
+        });
+        table.setOnKeyPressed(e -> {
+            GitHubRepository selected = table.getSelectionModel().getSelectedItem();
+            if (e.getCode() == javafx.scene.input.KeyCode.ENTER && selected != null) {
+                openRepository(selected);
+            }
+        });
         
-        repoSection.getChildren().addAll(repoTitle, repoGrid);
-        contentArea.getChildren().add(repoSection);
+        repoSection.getChildren().addAll(repoTitle, table, repositoryStatus);
+        contentArea.getChildren().addAll(createInsightsPanel(generation), repoSection);
+        metrics.recordRender(ApiMetrics.View.REPOSITORIES, System.nanoTime() - start);
     }
     
-    private VBox createRepositoryCard(GitHubRepository repo) {
-        VBox card = new VBox(10);
-        card.setStyle("-fx-background-color: rgba(124, 58, 237, 0.3); " +
-                     "-fx-border-color: #8b5cf6; " +
-                     "-fx-border-radius: 10; " +
-                     "-fx-background-radius: 10; " +
-                     "-fx-padding: 15;");
-        card.setPrefWidth(250);
-        
-        Label name = new Label(repo.getName());
-        name.setFont(Font.font("System", FontWeight.BOLD, 16));
-        name.setTextFill(Color.WHITE);
-        
-        if (repo.getDescription() != null && !repo.getDescription().isEmpty()) {
-            Label description = new Label(repo.getDescription());
-            description.setFont(Font.font("System", 12));
-            description.setTextFill(Color.web("#c4b5fd"));
-            description.setWrapText(true);
-            description.setMaxHeight(40);
-            card.getChildren().add(description);
+    private void appendRepositories(java.util.List<GitHubRepository> repositories) {
+        java.util.List<GitHubRepository> added = new java.util.ArrayList<>(repositories.size());
+        for (GitHubRepository repository : repositories) {
+            // The first paged fetch repeats the repositories shown from the initial request
+            if (shownRepositoryIds.add(repository.getId())) {
+                added.add(repository);
+            }
         }
-        
-        HBox stats = new HBox(15);
-        stats.setAlignment(Pos.CENTER_LEFT);
-        
-        if (repo.getLanguage() != null) {
-            Label language = new Label(repo.getLanguage());
-            language.setStyle("-fx-background-color: rgba(124, 58, 237, 0.5); " +
-                            "-fx-text-fill: #e5e7eb; " +
-                            "-fx-padding: 3 8; " +
-                            "-fx-background-radius: 12;");
-            stats.getChildren().add(language);
+        repositoryItems.addAll(added);
+        repositoryAnalytics.addAll(added);
+        updateRepositoryStatus();
+        updateInsights();
+    }
+    
+    private VBox createInsightsPanel(long generation) {
+        VBox insights = new VBox(8);
+        insights.getStyleClass().add("panel");
+        
+        Label title = new Label("📊 Insights");
+        title.getStyleClass().add("section-title");
+        
+        insightsTotals = new Label();
+        insightsLanguages = new Label();
+        insightsTopStarred = new Label();
+        insightsRecency = new Label();
+        for (Label line : java.util.List.of(insightsTotals, insightsLanguages, insightsTopStarred, insightsRecency)) {
+            line.getStyleClass().add("insights-line");
+            line.setWrapText(true);
         }
         
-        Label stars = new Label("⭐ " + repo.getStargazersCount());
-        stars.setTextFill(Color.web("#c4b5fd"));
-        stars.setFont(Font.font("System", 12));
-        
-        Label forks = new Label("🍴 " + repo.getForksCount());
-        forks.setTextFill(Color.web("#c4b5fd"));
-        forks.setFont(Font.font("System", 12));
-        
-        stats.getChildren().addAll(stars, forks);
+        Button analyseAll = new Button("Analyse all repositories");
+        analyseAll.getStyleClass().add("search-button");
+        analyseAll.setOnAction(e -> {
+            analyseAll.setDisable(true);
+            loadAllRepositories = true;
+            // The pager usually exists already (the table's first render starts it with one page in flight)
+            if (repositoryPages != null) {
+                repositoryPages.setMaxConcurrency(REPOSITORY_ANALYSE_CONCURRENCY);
+            }
+            loadMoreRepositories(generation);
+        });
         
-        card.getChildren().addAll(name, stats);
+        insights.getChildren().addAll(title, insightsTotals, insightsLanguages, insightsTopStarred, insightsRecency,
+                analyseAll);
+        updateInsights();
+        return insights;
+    }
+    
+    private void updateInsights() {
+        if (insightsTotals == null || repositoryAnalytics == null) {
+            return;
+        }
+        RepositoryAnalytics.Summary summary = repositoryAnalytics.summarize(INSIGHTS_TOP_COUNT);
+        insightsTotals.setText(String.format("%,d repositories · ⭐ %,d stars · 🍴 %,d forks",
+                summary.getRepositoryCount(), summary.getTotalStars(), summary.getTotalForks()));
+        
+        StringBuilder languages = new StringBuilder("Languages: ");
+        java.util.List<RepositoryAnalytics.LanguageShare> shares = summary.getLanguages();
+        for (int i = 0; i < Math.min(INSIGHTS_LANGUAGE_COUNT, shares.size()); i++) {
+            RepositoryAnalytics.LanguageShare share = shares.get(i);
+            languages.append(i > 0 ? " · " : "").append(share.getLanguage()).append(' ')
+                    .append(Math.round(100.0 * share.getRepositories() / summary.getRepositoryCount())).append('%');
+        }
+        insightsLanguages.setText(shares.isEmpty() ? "Languages: none" : languages.toString());
         
-        // Make clickable
-        card.setOnMouseClicked(e -> {
+        StringBuilder top = new StringBuilder("Most starred: ");
+        java.util.List<GitHubRepository> mostStarred = summary.getMostStarred();
+        for (int i = 0; i < mostStarred.size(); i++) {
+            top.append(i > 0 ? " · " : "").append(mostStarred.get(i).getName())
+                    .append(" (").append(mostStarred.get(i).getStargazersCount()).append(')');
+        }
+        insightsTopStarred.setText(mostStarred.isEmpty() ? "Most starred: none" : top.toString());
+        
+        insightsRecency.setText(String.format("Updated: %d in the last month · %d in 6 months · %d in a year"
+                        + " · %d in 3 years · %d older",
+                summary.getRecencyCount(RepositoryAnalytics.Recency.LAST_MONTH),
+                summary.getRecencyCount(RepositoryAnalytics.Recency.LAST_SIX_MONTHS),
+                summary.getRecencyCount(RepositoryAnalytics.Recency.LAST_YEAR),
+                summary.getRecencyCount(RepositoryAnalytics.Recency.LAST_THREE_YEARS),
+                summary.getRecencyCount(RepositoryAnalytics.Recency.OLDER)));
+    }
+    
+    private void loadMoreRepositories(long generation) {
+        if (loadingRepositories || generation != searchGeneration.get() || displayedLogin == null) {
+            return;
+        }
+        if (repositoryPages == null) {
+            // Created by the first render of the table, which requests the next page straight away;
+            // the pager then keeps one page prefetched ahead of what is shown
+            repositoryPages = new RepositoryPages(apiService, displayedLogin, REPOSITORY_PAGE_SIZE,
+                    loadAllRepositories ? REPOSITORY_ANALYSE_CONCURRENCY : 1, RateLimitScheduler.Priority.INTERACTIVE);
+        }
+        RepositoryPages pages = repositoryPages;
+        if (!pages.hasNext()) {
+            return;
+        }
+        loadingRepositories = true;
+        updateRepositoryStatus();
+        backgroundExecutor.submit(() -> {
+            java.util.List<GitHubRepository> page = null;
+            Throwable error = null;
             try {
-                java.awt.Desktop.getDesktop().browse(java.net.URI.create(repo.getHtmlUrl()));
-            } catch (Exception ex) {
-                showAlert("Could not open repository URL");
+                page = pages.next();
+            } catch (RuntimeException e) {
+                error = e;
             }
+            java.util.List<GitHubRepository> loaded = page;
+            Throwable failure = error;
+            Platform.runLater(() -> {
+                if (pages != repositoryPages) {
+                    return;
+                }
+                loadingRepositories = false;
+                if (failure != null) {
+                    System.err.println("Failed to load more repositories: " + failure.getMessage());
+                    pages.close();
+                    updateRepositoryStatus();
+                    return;
+                }
+                appendRepositories(loaded);
+                if (loadAllRepositories) {
+                    loadMoreRepositories(displayedGeneration);
+                }
+            });
         });
-        
-        card.setOnMouseEntered(e -> card.setStyle(card.getStyle() + "-fx-cursor: hand;"));
-        
-        return card;
+    }
+    
+    private void updateRepositoryStatus() {
+        if (repositoryStatus == null) {
+            return;
+        }
+        boolean more = repositoryPages == null || repositoryPages.hasNext();
+        repositoryStatus.setText(repositoryItems.size() + " shown"
+                + (loadingRepositories ? " · loading more…" : more ? " · scroll for more" : ""));
+    }
+    
+    private void openRepository(GitHubRepository repo) {
+        try {
+            java.awt.Desktop.getDesktop().browse(java.net.URI.create(repo.getHtmlUrl()));
+        } catch (Exception ex) {
+            showAlert("Could not open repository URL");
+        }
     }
     
     private void updateSidebar() {
@@ -450,11 +923,7 @@ public class GitHubProfileSearchApp extends Application {
         java.util.List<String> history = historyService.getHistory();
         if (!history.isEmpty()) {
             VBox historySection = new VBox(10);
-            historySection.setStyle("-fx-background-color: rgba(139, 92, 246, 0.3); " +
-                                  "-fx-border-color: #7c3aed; " +
-                                  "-fx-border-radius: 10; " +
-                                  "-fx-background-radius: 10; " +
-                                  "-fx-padding: 15;");
+            historySection.getStyleClass().add("sidebar-section");
             
             Label historyTitle = new Label("📝 Recent Searches");
             historyTitle.setFont(Font.font("System", FontWeight.BOLD, 16));
@@ -464,10 +933,7 @@ public class GitHubProfileSearchApp extends Application {
             
             for (String username : history.subList(0, Math.min(5, history.size()))) {
                 Button historyButton = new Button(username);
-                historyButton.setStyle("-fx-background-color: rgba(124, 58, 237, 0.5); " +
-                                     "-fx-text-fill: #e5e7eb; " +
-                                     "-fx-border-color: transparent; " +
-                                     "-fx-background-radius: 5;");
+                historyButton.getStyleClass().add("history-button");
                 historyButton.setPrefWidth(200);
                 historyButton.setOnAction(e -> {
                     searchField.setText(username);
@@ -488,7 +954,13 @@ public class GitHubProfileSearchApp extends Application {
         alert.showAndWait();
     }
     
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        StartupTrace.mark("main");
+        if (args.length > 0 && args[0].equals("--batch")) {
+            // Headless bulk lookup; see BulkLookup for the options
+            BulkLookup.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         launch(args);
     }
 }
@@ -1,24 +1,34 @@
 package com.github.search;
 
-public class GitHubRepository {
-    private int id;
-    private String name;
-    private String description;
-    private String htmlUrl;
-    private int stargazersCount;
-    private int forksCount;
-    private String language;
-    private String updatedAt;
+/**
+ * Immutable repository. The language is an id into {@link LanguageDictionary} and the update
+ * time is kept as epoch seconds.
+ */
+public final class GitHubRepository {
+    private final int id;
+    private final String name;
+    private final String description;
+    private final String htmlUrl;
+    private final int stargazersCount;
+    private final int forksCount;
+    private final short languageId;
+    private final long updatedAt;
     
     public GitHubRepository(int id, String name, String description, String htmlUrl,
                            int stargazersCount, int forksCount, String language, String updatedAt) {
+        this(id, name, description, htmlUrl, stargazersCount, forksCount,
+                LanguageDictionary.idOf(language), Timestamps.parse(updatedAt));
+    }
+    
+    GitHubRepository(int id, String name, String description, String htmlUrl, int stargazersCount,
+                     int forksCount, short languageId, long updatedAt) {
         this.id = id;
         this.name = name;
         this.description = description;
         this.htmlUrl = htmlUrl;
         this.stargazersCount = stargazersCount;
         this.forksCount = forksCount;
-        this.language = language;
+        this.languageId = languageId;
         this.updatedAt = updatedAt;
     }
     
@@ -29,16 +39,9 @@ public class GitHubRepository {
     public String getHtmlUrl() { return htmlUrl; }
     public int getStargazersCount() { return stargazersCount; }
     public int getForksCount() { return forksCount; }
-    public String getLanguage() { return language; }
-    public String getUpdatedAt() { return updatedAt; }
-    
-    // Setters
-    public void setId(int id) { this.id = id; }
-    public void setName(String name) { this.name = name; }
-    public void setDescription(String description) { this.description = description; }
-    public void setHtmlUrl(String htmlUrl) { this.htmlUrl = htmlUrl; }
-    public void setStargazersCount(int stargazersCount) { this.stargazersCount = stargazersCount; }
-    public void setForksCount(int forksCount) { this.forksCount = forksCount; }
-    public void setLanguage(String language) { this.language = language; }
-    public void setUpdatedAt(String updatedAt) { this.updatedAt = updatedAt; }
+    public String getLanguage() { return LanguageDictionary.nameOf(languageId); }
+    public short getLanguageId() { return languageId; }
+    public String getUpdatedAt() { return Timestamps.format(updatedAt); }
+    /** Last update in epoch seconds, or {@link Timestamps#UNKNOWN}. */
+    public long getUpdatedAtEpochSeconds() { return updatedAt; }
 }
@@ -1,36 +1,42 @@
 package com.github.search;
 
-public class GitHubUser {
-    private String login;
-    private String name;
-    private String avatarUrl;
-    private String bio;
-    private int publicRepos;
-    private int followers;
-    private int following;
-    private String location;
-    private String blog;
-    private String company;
-    private String email;
-    private String createdAt;
-    private String htmlUrl;
+/**
+ * Immutable profile. The creation date is kept as epoch seconds, empty optional fields as
+ * null, and the profile URL only when it differs from the usual github.com/login.
+ */
+public final class GitHubUser {
+    private static final String PROFILE_URL_PREFIX = "https://github.com/";
+    
+    private final String login;
+    private final String name;
+    private final String avatarUrl;
+    private final String bio;
+    private final int publicRepos;
+    private final int followers;
+    private final int following;
+    private final String location;
+    private final String blog;
+    private final String company;
+    private final String email;
+    private final long createdAt;
+    private final String htmlUrl;
     
     public GitHubUser(String login, String name, String avatarUrl, String bio, 
                      int publicRepos, int followers, int following, String location,
                      String blog, String company, String email, String createdAt, String htmlUrl) {
         this.login = login;
-        this.name = name;
+        this.name = emptyToNull(name);
         this.avatarUrl = avatarUrl;
-        this.bio = bio;
+        this.bio = emptyToNull(bio);
         this.publicRepos = publicRepos;
         this.followers = followers;
         this.following = following;
-        this.location = location;
-        this.blog = blog;
-        this.company = company;
-        this.email = email;
-        this.createdAt = createdAt;
-        this.htmlUrl = htmlUrl;
+        this.location = emptyToNull(location);
+        this.blog = emptyToNull(blog);
+        this.company = emptyToNull(company);
+        this.email = emptyToNull(email);
+        this.createdAt = Timestamps.parse(createdAt);
+        this.htmlUrl = isDefaultProfileUrl(htmlUrl, login) ? null : htmlUrl;
     }
     
     // Getters
@@ -45,21 +51,18 @@ public class GitHubUser {
     public String getBlog() { return blog; }
     public String getCompany() { return company; }
     public String getEmail() { return email; }
-    public String getCreatedAt() { return createdAt; }
-    public String getHtmlUrl() { return htmlUrl; }
+    public String getCreatedAt() { return Timestamps.format(createdAt); }
+    /** Creation time in epoch seconds, or {@link Timestamps#UNKNOWN}. */
+    public long getCreatedAtEpochSeconds() { return createdAt; }
+    public String getHtmlUrl() { return htmlUrl != null ? htmlUrl : login != null ? PROFILE_URL_PREFIX + login : null; }
+    
+    private static boolean isDefaultProfileUrl(String htmlUrl, String login) {
+        return htmlUrl != null && login != null
+                && htmlUrl.length() == PROFILE_URL_PREFIX.length() + login.length()
+                && htmlUrl.startsWith(PROFILE_URL_PREFIX) && htmlUrl.endsWith(login);
+    }
     
-    // Setters
-    public void setLogin(String login) { this.login = login; }
-    public void setName(String name) { this.name = name; }
-    public void setAvatarUrl(String avatarUrl) { this.avatarUrl = avatarUrl; }
-    public void setBio(String bio) { this.bio = bio; }
-    public void setPublicRepos(int publicRepos) { this.publicRepos = publicRepos; }
-    public void setFollowers(int followers) { this.followers = followers; }
-    public void setFollowing(int following) { this.following = following; }
-    public void setLocation(String location) { this.location = location; }
-    public void setBlog(String blog) { this.blog = blog; }
-    public void setCompany(String company) { this.company = company; }
-    public void setEmail(String email) { this.email = email; }
-    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
-    public void setHtmlUrl(String htmlUrl) { this.htmlUrl = htmlUrl; }
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
 }
@@ -0,0 +1,54 @@
+package com.github.search;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide table of language names. Repositories keep a {@code short} id instead of their
+ * own copy of "Java" or "TypeScript"; GitHub knows a few hundred languages, so ids never run out
+ * in practice.
+ */
+public final class LanguageDictionary {
+    
+    /** Id of a repository without a detected language. */
+    public static final short NONE = 0;
+    
+    private static final ConcurrentHashMap<String, Short> IDS = new ConcurrentHashMap<>();
+    // Copy-on-write so lookups by id need no lock; index 0 is NONE
+    private static volatile String[] names = new String[] { null };
+    
+    private LanguageDictionary() {
+    }
+    
+    public static short idOf(String language) {
+        if (language == null) {
+            return NONE;
+        }
+        Short id = IDS.get(language);
+        return id != null ? id : register(language);
+    }
+    
+    public static String nameOf(short id) {
+        return names[id];
+    }
+    
+    public static int size() {
+        return names.length - 1;
+    }
+    
+    private static synchronized short register(String language) {
+        Short id = IDS.get(language);
+        if (id != null) {
+            return id;
+        }
+        String[] current = names;
+        if (current.length > Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct languages");
+        }
+        String[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = language;
+        names = grown;
+        IDS.put(language, (short) current.length);
+        return (short) current.length;
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.search;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free latency histogram in microseconds.
+ *
+ * Buckets are log-linear: each power of two is split into 16 linear sub-buckets, so any
+ * recorded value is off by at most 1/16 (about 6%). Recording is a couple of atomic
+ * increments and never allocates, so it is cheap enough to call on every request.
+ */
+public class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values are capped at 2^40 us (about 12 days)
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+    
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+    
+    public void recordMicros(long micros) {
+        long value = Math.min(Math.max(micros, 0), (1L << MAX_EXPONENT) - 1);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        totalMicros.addAndGet(value);
+        maxMicros.accumulateAndGet(value, Math::max);
+    }
+    
+    public long getCount() {
+        return count.get();
+    }
+    
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+    
+    public double getMeanMicros() {
+        long n = count.get();
+        return n == 0 ? 0.0 : (double) totalMicros.get() / n;
+    }
+    
+    /** Upper bound of the bucket holding the given percentile (0-100), or 0 when empty. */
+    public long getPercentileMicros(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(n * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+    
+    public Snapshot snapshot() {
+        return new Snapshot(getCount(), getMeanMicros(), getPercentileMicros(50), getPercentileMicros(90),
+                getPercentileMicros(99), getMaxMicros());
+    }
+    
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        totalMicros.set(0);
+        maxMicros.set(0);
+    }
+    
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+    
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+    
+    /** Point-in-time summary; a plain bean so JMX can show it as composite data. */
+    public static class Snapshot {
+        private final long count;
+        private final double meanMicros;
+        private final long p50Micros;
+        private final long p90Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+        
+        public Snapshot(long count, double meanMicros, long p50Micros, long p90Micros, long p99Micros,
+                        long maxMicros) {
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+        
+        // Getters
+        public long getCount() { return count; }
+        public double getMeanMicros() { return meanMicros; }
+        public long getP50Micros() { return p50Micros; }
+        public long getP90Micros() { return p90Micros; }
+        public long getP99Micros() { return p99Micros; }
+        public long getMaxMicros() { return maxMicros; }
+    }
+}
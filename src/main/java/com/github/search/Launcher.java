@@ -0,0 +1,15 @@
+package com.github.search;
+
+/**
+ * Main class of the shaded jar. The java launcher refuses to start an {@code Application}
+ * subclass when JavaFX is on the class path rather than the module path, so it starts here.
+ */
+public final class Launcher {
+    
+    private Launcher() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        GitHubProfileSearchApp.main(args);
+    }
+}
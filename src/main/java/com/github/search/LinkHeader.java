@@ -0,0 +1,59 @@
+package com.github.search;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses RFC 8288 {@code Link} headers as sent by GitHub for paginated endpoints, e.g.
+ * {@code <https://api.github.com/user/1/repos?page=2>; rel="next", <...?page=5>; rel="last"}.
+ */
+public final class LinkHeader {
+    
+    private static final Pattern LINK = Pattern.compile("<([^>]*)>\\s*;\\s*rel=\"([^\"]+)\"");
+    private static final Pattern PAGE = Pattern.compile("(?:^|&)page=(\\d+)");
+    
+    private final Map<String, String> links;
+    
+    private LinkHeader(Map<String, String> links) {
+        this.links = links;
+    }
+    
+    public static LinkHeader parse(String header) {
+        Map<String, String> links = new HashMap<>();
+        if (header != null) {
+            Matcher matcher = LINK.matcher(header);
+            while (matcher.find()) {
+                // A link may carry several space-separated relation types
+                for (String rel : matcher.group(2).split("\\s+")) {
+                    links.put(rel, matcher.group(1));
+                }
+            }
+        }
+        return new LinkHeader(links);
+    }
+    
+    public String get(String rel) {
+        return links.get(rel);
+    }
+    
+    public boolean has(String rel) {
+        return links.containsKey(rel);
+    }
+    
+    /** Page number of the given relation, or -1 if absent. */
+    public int page(String rel) {
+        String url = links.get(rel);
+        if (url == null) {
+            return -1;
+        }
+        String query = URI.create(url).getRawQuery();
+        if (query == null) {
+            return -1;
+        }
+        Matcher matcher = PAGE.matcher(query);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+}
@@ -0,0 +1,571 @@
+package com.github.search;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded on-disk store of fetched users and repositories, so the app can show profiles it
+ * has seen before at startup and while offline.
+ *
+ * Records are appended to a single file that is read through a memory mapping. An in-memory
+ * index maps each login and repository id to the offset of its latest record, so a lookup
+ * decodes just that record. Superseded records are left in place and dropped by a background
+ * compaction once they outweigh the live ones.
+ *
+ * One MappedByteBuffer can address at most 2 GB, so the file is mapped in fixed chunks of
+ * {@value #MAP_CHUNK_BYTES} bytes: growth remaps only the last, partial chunk, and the file
+ * itself may grow past 2 GB (a single record may not). Compaction writes the next generation
+ * to a new file ({@code profiles.N.dat}), switches over to it and then deletes the old one,
+ * so a file is never replaced while it is mapped; an old generation that cannot be deleted
+ * yet (Windows refuses while a mapping is alive) is removed the next time the store opens.
+ *
+ * Record layout: int bodyLength, int crc32(body), then the body: byte type, long savedAt and
+ * the type's fields. Strings are an int byte length (-1 for null) followed by UTF-8 bytes.
+ */
+public class LocalProfileStore implements AutoCloseable {
+    
+    // Written by earlier versions; taken over as generation 0
+    private static final String LEGACY_DATA_FILE = "profiles.dat";
+    private static final Pattern GENERATION_FILE = Pattern.compile("profiles\\.(\\d+)\\.dat");
+    private static final int MAP_CHUNK_BYTES = 64 * 1024 * 1024;
+    private static final int MAGIC = 0x47485053; // "GHPS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final long COMPACT_MIN_DEAD_BYTES = 1024 * 1024;
+    private static final long CLOSE_WAIT_SECONDS = 30;
+    
+    private static final byte TYPE_USER = 1;
+    private static final byte TYPE_REPOSITORY = 2;
+    private static final byte TYPE_REPOSITORY_LIST = 3;
+    
+    private final Path directory;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "profile-store-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // Guarded by this
+    private Path dataFile;
+    private int generation;
+    private FileChannel channel;
+    private Mapping mapping;
+    private long fileSize;
+    private long liveBytes;
+    private boolean compacting;
+    private boolean closed;
+    private final Map<String, Long> users = new HashMap<>();
+    private final Map<String, Long> repositoryLists = new HashMap<>();
+    private final Map<Integer, Long> repositories = new HashMap<>();
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream();
+    
+    public LocalProfileStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        open();
+    }
+    
+    public synchronized void putUser(GitHubUser user) {
+        try {
+            DataOutputStream out = body(TYPE_USER);
+            writeString(out, user.getLogin());
+            writeString(out, user.getName());
+            writeString(out, user.getAvatarUrl());
+            writeString(out, user.getBio());
+            out.writeInt(user.getPublicRepos());
+            out.writeInt(user.getFollowers());
+            out.writeInt(user.getFollowing());
+            writeString(out, user.getLocation());
+            writeString(out, user.getBlog());
+            writeString(out, user.getCompany());
+            writeString(out, user.getEmail());
+            writeString(out, user.getCreatedAt());
+            writeString(out, user.getHtmlUrl());
+            append(users, key(user.getLogin()), out);
+        } catch (IOException e) {
+            System.err.println("Failed to store user " + user.getLogin() + ": " + e.getMessage());
+        }
+        maybeCompact();
+    }
+    
+    public synchronized void putRepositories(String login, List<GitHubRepository> list) {
+        try {
+            for (GitHubRepository repository : list) {
+                DataOutputStream out = body(TYPE_REPOSITORY);
+                out.writeInt(repository.getId());
+                writeString(out, repository.getName());
+                writeString(out, repository.getDescription());
+                writeString(out, repository.getHtmlUrl());
+                out.writeInt(repository.getStargazersCount());
+                out.writeInt(repository.getForksCount());
+                writeString(out, repository.getLanguage());
+                writeString(out, repository.getUpdatedAt());
+                append(repositories, repository.getId(), out);
+            }
+            DataOutputStream out = body(TYPE_REPOSITORY_LIST);
+            writeString(out, key(login));
+            out.writeInt(list.size());
+            for (GitHubRepository repository : list) {
+                out.writeInt(repository.getId());
+            }
+            append(repositoryLists, key(login), out);
+        } catch (IOException e) {
+            System.err.println("Failed to store repositories of " + login + ": " + e.getMessage());
+        }
+        maybeCompact();
+    }
+    
+    public synchronized GitHubUser getUser(String login) {
+        Long offset = users.get(key(login));
+        if (offset == null) {
+            return null;
+        }
+        ByteBuffer in = record(offset);
+        return new GitHubUser(readString(in), readString(in), readString(in), readString(in),
+                in.getInt(), in.getInt(), in.getInt(), readString(in), readString(in),
+                readString(in), readString(in), readString(in), readString(in));
+    }
+    
+    public synchronized GitHubRepository getRepository(int id) {
+        Long offset = repositories.get(id);
+        if (offset == null) {
+            return null;
+        }
+        ByteBuffer in = record(offset);
+        return new GitHubRepository(in.getInt(), readString(in), readString(in), readString(in),
+                in.getInt(), in.getInt(), readString(in), readString(in));
+    }
+    
+    /** The repositories last stored for the login, in their original order, or null if none. */
+    public synchronized List<GitHubRepository> getRepositories(String login) {
+        Long offset = repositoryLists.get(key(login));
+        if (offset == null) {
+            return null;
+        }
+        ByteBuffer in = record(offset);
+        readString(in);
+        int count = in.getInt();
+        RepositoryTable list = new RepositoryTable(count);
+        for (int i = 0; i < count; i++) {
+            GitHubRepository repository = getRepository(in.getInt());
+            if (repository != null) {
+                list.append(repository);
+            }
+        }
+        return list.trim();
+    }
+    
+    /** When the user was last stored, in epoch millis, or 0 if never. */
+    public synchronized long getSavedAt(String login) {
+        Long offset = users.get(key(login));
+        if (offset == null) {
+            return 0;
+        }
+        ensureMapped();
+        return mapping.getLong(offset + RECORD_HEADER_BYTES + 1);
+    }
+    
+    public synchronized List<String> logins() {
+        return new ArrayList<>(users.keySet());
+    }
+    
+    public synchronized long getFileSize() {
+        return fileSize;
+    }
+    
+    public synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+    
+    // Lets a compaction in flight finish first; one that outlasts the wait gives up at its switch-over
+    @Override
+    public void close() {
+        compactor.shutdown();
+        try {
+            if (!compactor.awaitTermination(CLOSE_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Closing profile store while a compaction is still running");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close profile store: " + e.getMessage());
+            }
+        }
+    }
+    
+    // Builds the index by walking record headers and keys only; a torn or corrupt tail is cut off
+    private void open() throws IOException {
+        Path legacy = directory.resolve(LEGACY_DATA_FILE);
+        generation = latestGeneration();
+        if (generation < 0 && Files.exists(legacy)) {
+            Files.move(legacy, generationFile(0), StandardCopyOption.ATOMIC_MOVE);
+        }
+        generation = Math.max(generation, 0);
+        dataFile = generationFile(generation);
+        deleteOldGenerations();
+        
+        channel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (channel.size() < FILE_HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+        }
+        fileSize = channel.size();
+        mapping = new Mapping();
+        mapping.extend(channel, fileSize);
+        if (mapping.getInt(0) != MAGIC || mapping.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Not a profile store: " + dataFile);
+        }
+        
+        long offset = FILE_HEADER_BYTES;
+        CRC32 crc = new CRC32();
+        while (offset + RECORD_HEADER_BYTES <= fileSize) {
+            int length = mapping.getInt(offset);
+            if (length <= 0 || offset + RECORD_HEADER_BYTES + length > fileSize) {
+                break;
+            }
+            crc.reset();
+            crc.update(mapping.slice(offset + RECORD_HEADER_BYTES, length));
+            if ((int) crc.getValue() != mapping.getInt(offset + 4)) {
+                break;
+            }
+            ByteBuffer in = record(offset);
+            switch (mapping.get(offset + RECORD_HEADER_BYTES)) {
+                case TYPE_USER -> index(users, key(readString(in)), offset, RECORD_HEADER_BYTES + length);
+                case TYPE_REPOSITORY -> index(repositories, in.getInt(), offset, RECORD_HEADER_BYTES + length);
+                case TYPE_REPOSITORY_LIST -> index(repositoryLists, readString(in), offset, RECORD_HEADER_BYTES + length);
+                default -> {
+                    // Unknown record type; leave it to be dropped by the next compaction
+                }
+            }
+            offset += RECORD_HEADER_BYTES + length;
+        }
+        if (offset < fileSize) {
+            System.err.println("Profile store: discarding " + (fileSize - offset) + " bytes of incomplete records");
+            channel.truncate(offset);
+            fileSize = offset;
+            mapping = new Mapping();
+            mapping.extend(channel, fileSize);
+        }
+    }
+    
+    private Path generationFile(int number) {
+        return directory.resolve("profiles." + number + ".dat");
+    }
+    
+    private int latestGeneration() throws IOException {
+        int latest = -1;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher name = GENERATION_FILE.matcher(file.getFileName().toString());
+                if (name.matches()) {
+                    latest = Math.max(latest, Integer.parseInt(name.group(1)));
+                }
+            }
+        }
+        return latest;
+    }
+    
+    // Generations before the current one, and compactions that never finished
+    private void deleteOldGenerations() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                Matcher generationName = GENERATION_FILE.matcher(name);
+                boolean old = generationName.matches() && Integer.parseInt(generationName.group(1)) < generation;
+                if (old || name.endsWith(".dat.tmp") || name.equals(LEGACY_DATA_FILE + ".compact")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+    
+    private <K> void index(Map<K, Long> index, K key, long offset, int size) {
+        Long previous = index.put(key, offset);
+        if (previous != null) {
+            liveBytes -= recordSize(previous);
+        }
+        liveBytes += size;
+    }
+    
+    private DataOutputStream body(byte type) throws IOException {
+        scratch.reset();
+        DataOutputStream out = new DataOutputStream(scratch);
+        out.writeByte(type);
+        out.writeLong(System.currentTimeMillis());
+        return out;
+    }
+    
+    // Writes the record at the end of the file; the mapping is extended lazily on the next read
+    private <K> void append(Map<K, Long> index, K key, DataOutputStream out) throws IOException {
+        out.flush();
+        byte[] body = scratch.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_BYTES + body.length)
+                .putInt(body.length)
+                .putInt((int) crc.getValue())
+                .put(body)
+                .flip();
+        long offset = fileSize;
+        writeFully(channel, buffer, offset);
+        fileSize += buffer.limit();
+        index(index, key, offset, buffer.limit());
+    }
+    
+    // The record's fields, positioned just after its type and timestamp
+    private ByteBuffer record(long offset) {
+        ensureMapped();
+        int length = mapping.getInt(offset);
+        return mapping.slice(offset + RECORD_HEADER_BYTES + 9, length - 9);
+    }
+    
+    private long recordSize(long offset) {
+        ensureMapped();
+        return RECORD_HEADER_BYTES + mapping.getInt(offset);
+    }
+    
+    private void ensureMapped() {
+        if (mapping.size() < fileSize) {
+            try {
+                mapping.extend(channel, fileSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+    
+    private void maybeCompact() {
+        long deadBytes = fileSize - FILE_HEADER_BYTES - liveBytes;
+        if (!compacting && deadBytes >= COMPACT_MIN_DEAD_BYTES && deadBytes > liveBytes) {
+            compacting = true;
+            compactor.execute(this::compact);
+        }
+    }
+    
+    // Copies live records to the next generation's file without holding the lock, then, under
+    // the lock, copies anything appended in the meantime, switches to it and re-points the index.
+    // The old file is deleted once nothing reads through it any more.
+    private void compact() {
+        long snapshotEnd;
+        Mapping source;
+        List<Long> live;
+        Path next;
+        synchronized (this) {
+            ensureMapped();
+            snapshotEnd = fileSize;
+            source = mapping.copy();
+            next = generationFile(generation + 1);
+            live = new ArrayList<>(users.size() + repositories.size() + repositoryLists.size());
+            live.addAll(users.values());
+            live.addAll(repositories.values());
+            live.addAll(repositoryLists.values());
+        }
+        live.sort(null);
+        
+        // Written under a temporary name, so an interrupted compaction never looks like a generation
+        Path temp = next.resolveSibling(next.getFileName() + ".tmp");
+        Map<Long, Long> moved = new HashMap<>(live.size() * 2);
+        Path old;
+        try (FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = 0;
+            position += writeFully(target, source.slice(0, FILE_HEADER_BYTES), position);
+            for (long offset : live) {
+                int size = RECORD_HEADER_BYTES + source.getInt(offset);
+                moved.put(offset, position);
+                position += writeFully(target, source.slice(offset, size), position);
+            }
+            
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("store closed during compaction");
+                }
+                long tailStart = position;
+                ensureMapped();
+                for (long offset = snapshotEnd; offset < fileSize; ) {
+                    int length = (int) Math.min(MAP_CHUNK_BYTES, fileSize - offset);
+                    position += writeFully(target, mapping.slice(offset, length), position);
+                    offset += length;
+                }
+                target.force(false);
+                Files.move(temp, next, StandardCopyOption.ATOMIC_MOVE);
+                
+                long shift = tailStart - snapshotEnd;
+                relocate(users, moved, snapshotEnd, shift);
+                relocate(repositories, moved, snapshotEnd, shift);
+                relocate(repositoryLists, moved, snapshotEnd, shift);
+                
+                old = dataFile;
+                channel.close();
+                dataFile = next;
+                generation++;
+                channel = FileChannel.open(dataFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                fileSize = channel.size();
+                mapping = new Mapping();
+                mapping.extend(channel, fileSize);
+                compacting = false;
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Failed to compact profile store: " + e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Removed when the store next opens
+            }
+            synchronized (this) {
+                compacting = false;
+            }
+            return;
+        }
+        
+        source = null;
+        try {
+            Files.deleteIfExists(old);
+        } catch (IOException e) {
+            // Typically still mapped (Windows); deleteOldGenerations removes it on the next open
+            System.err.println("Failed to delete old profile store generation " + old.getFileName() + ": "
+                    + e.getMessage());
+        }
+    }
+    
+    private static <K> void relocate(Map<K, Long> index, Map<Long, Long> moved, long snapshotEnd, long shift) {
+        for (Map.Entry<K, Long> entry : index.entrySet()) {
+            long offset = entry.getValue();
+            entry.setValue(offset >= snapshotEnd ? offset + shift : moved.get(offset));
+        }
+    }
+    
+    private static long writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += target.write(buffer, position + written);
+        }
+        return written;
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    // GitHub logins are case-insensitive
+    private static String key(String login) {
+        return login.toLowerCase(Locale.ROOT);
+    }
+    
+    // The file as read-only chunks of MAP_CHUNK_BYTES; only the last one may be shorter
+    private static final class Mapping {
+        private final List<MappedByteBuffer> chunks = new ArrayList<>();
+        private long size;
+        
+        /** Maps the file up to {@code newSize}, remapping only the last chunk if it was partial. */
+        void extend(FileChannel channel, long newSize) throws IOException {
+            int first = chunks.size();
+            if (first > 0 && chunks.get(first - 1).capacity() < MAP_CHUNK_BYTES) {
+                first--;
+            }
+            for (int k = first; (long) k * MAP_CHUNK_BYTES < newSize; k++) {
+                long start = (long) k * MAP_CHUNK_BYTES;
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(MAP_CHUNK_BYTES, newSize - start));
+                if (k < chunks.size()) {
+                    chunks.set(k, chunk);
+                } else {
+                    chunks.add(chunk);
+                }
+            }
+            size = Math.max(size, newSize);
+        }
+        
+        long size() {
+            return size;
+        }
+        
+        /** The same chunks, unaffected by later growth of this mapping. */
+        Mapping copy() {
+            Mapping copy = new Mapping();
+            copy.chunks.addAll(chunks);
+            copy.size = size;
+            return copy;
+        }
+        
+        /** The bytes at {@code offset}: a view when they lie in one chunk, else a copy of both parts. */
+        ByteBuffer slice(long offset, int length) {
+            MappedByteBuffer chunk = chunks.get((int) (offset / MAP_CHUNK_BYTES));
+            int start = (int) (offset % MAP_CHUNK_BYTES);
+            if (start + length <= chunk.capacity()) {
+                return chunk.slice(start, length);
+            }
+            ByteBuffer joined = ByteBuffer.allocate(length);
+            for (long position = offset; joined.hasRemaining(); ) {
+                MappedByteBuffer part = chunks.get((int) (position / MAP_CHUNK_BYTES));
+                int from = (int) (position % MAP_CHUNK_BYTES);
+                int count = Math.min(joined.remaining(), part.capacity() - from);
+                joined.put(part.slice(from, count));
+                position += count;
+            }
+            return joined.flip();
+        }
+        
+        byte get(long offset) {
+            return slice(offset, 1).get(0);
+        }
+        
+        int getInt(long offset) {
+            return slice(offset, Integer.BYTES).getInt(0);
+        }
+        
+        long getLong(long offset) {
+            return slice(offset, Long.BYTES).getLong(0);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Prefix index over every login the app has seen, for typeahead suggestions.
+ *
+ * Logins are kept in parallel arrays sorted by lower-cased login, so a prefix lookup is
+ * a binary search plus a scan of the matching range; no network and no allocation beyond
+ * the result list. Each login carries a frequency that decays with time since it was last
+ * used, so recent and often-used logins rank first. Single inserts shift the arrays, so
+ * large batches (seeding from the caches and the store) go through {@link #addAll}, which
+ * sorts the batch once and merges it in.
+ */
+public class LoginIndex {
+    
+    private static final int INITIAL_CAPACITY = 64;
+    private static final double HALF_LIFE_MILLIS = 7 * 24 * 60 * 60 * 1000.0;
+    
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private String[] logins = new String[INITIAL_CAPACITY];
+    private double[] frequencies = new double[INITIAL_CAPACITY];
+    private long[] lastUsed = new long[INITIAL_CAPACITY];
+    private int size;
+    
+    /** Adds a login without counting it as a use (e.g. a cached profile). */
+    public synchronized void add(String login) {
+        indexOf(login, true);
+    }
+    
+    /** Adds many logins at once without counting them as uses; duplicates are ignored. */
+    public synchronized void addAll(Collection<String> added) {
+        String[] addedLogins = added.toArray(new String[0]);
+        String[] addedKeys = new String[addedLogins.length];
+        Integer[] order = new Integer[addedLogins.length];
+        for (int i = 0; i < addedLogins.length; i++) {
+            addedKeys[i] = addedLogins[i].toLowerCase(Locale.ROOT);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> addedKeys[i]));
+        
+        int capacity = Math.max(keys.length, size + addedLogins.length);
+        String[] mergedKeys = new String[capacity];
+        String[] mergedLogins = new String[capacity];
+        double[] mergedFrequencies = new double[capacity];
+        long[] mergedLastUsed = new long[capacity];
+        int merged = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size || j < order.length) {
+            if (j == order.length || (i < size && keys[i].compareTo(addedKeys[order[j]]) <= 0)) {
+                mergedKeys[merged] = keys[i];
+                mergedLogins[merged] = logins[i];
+                mergedFrequencies[merged] = frequencies[i];
+                mergedLastUsed[merged] = lastUsed[i];
+                merged++;
+                i++;
+            } else {
+                String key = addedKeys[order[j]];
+                if (merged == 0 || !mergedKeys[merged - 1].equals(key)) {
+                    mergedKeys[merged] = key;
+                    mergedLogins[merged] = addedLogins[order[j]];
+                    merged++;
+                }
+                j++;
+            }
+            // A login already indexed wins over the same login in the batch
+            while (j < order.length && merged > 0 && mergedKeys[merged - 1].equals(addedKeys[order[j]])) {
+                j++;
+            }
+        }
+        keys = mergedKeys;
+        logins = mergedLogins;
+        frequencies = mergedFrequencies;
+        lastUsed = mergedLastUsed;
+        size = merged;
+    }
+    
+    /** Counts a use of the login with the given weight, adding it if needed. */
+    public synchronized void record(String login, double weight) {
+        int i = indexOf(login, true);
+        frequencies[i] += weight;
+        lastUsed[i] = System.currentTimeMillis();
+        logins[i] = login;
+    }
+    
+    public synchronized boolean contains(String login) {
+        return indexOf(login, false) >= 0;
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+    
+    public synchronized List<String> suggest(String prefix, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int from = lowerBound(key);
+        long now = System.currentTimeMillis();
+        
+        // Keep the best `limit` matches in descending score order
+        int[] best = new int[limit];
+        double[] bestScores = new double[limit];
+        int found = 0;
+        for (int i = from; i < size && keys[i].startsWith(key); i++) {
+            double score = score(i, now);
+            if (found < limit) {
+                found++;
+            } else if (score <= bestScores[limit - 1]) {
+                continue;
+            }
+            int slot = found - 1;
+            while (slot > 0 && bestScores[slot - 1] < score) {
+                best[slot] = best[slot - 1];
+                bestScores[slot] = bestScores[slot - 1];
+                slot--;
+            }
+            best[slot] = i;
+            bestScores[slot] = score;
+        }
+        
+        List<String> suggestions = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            suggestions.add(logins[best[i]]);
+        }
+        return suggestions;
+    }
+    
+    private double score(int i, long now) {
+        if (lastUsed[i] == 0) {
+            // Seen but never used: rank below anything used, alphabetically among themselves
+            return 0;
+        }
+        double age = Math.max(0, now - lastUsed[i]);
+        return frequencies[i] * Math.pow(0.5, age / HALF_LIFE_MILLIS) + Double.MIN_VALUE;
+    }
+    
+    private int indexOf(String login, boolean insert) {
+        String key = login.toLowerCase(Locale.ROOT);
+        int i = lowerBound(key);
+        if (i < size && keys[i].equals(key)) {
+            return i;
+        }
+        if (!insert) {
+            return -1;
+        }
+        if (size == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            logins = Arrays.copyOf(logins, capacity);
+            frequencies = Arrays.copyOf(frequencies, capacity);
+            lastUsed = Arrays.copyOf(lastUsed, capacity);
+        }
+        int tail = size - i;
+        System.arraycopy(keys, i, keys, i + 1, tail);
+        System.arraycopy(logins, i, logins, i + 1, tail);
+        System.arraycopy(frequencies, i, frequencies, i + 1, tail);
+        System.arraycopy(lastUsed, i, lastUsed, i + 1, tail);
+        keys[i] = key;
+        logins[i] = login;
+        frequencies[i] = 0;
+        lastUsed[i] = 0;
+        size++;
+        return i;
+    }
+    
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.search;
+
+/**
+ * Set of primitive longs with open addressing and linear probing.
+ *
+ * Every entry is a single slot in a {@code long[]}, about 8-16 bytes per element depending on the
+ * load, where a {@code HashSet<Long>} costs around 60. Zero marks an empty slot, so the value 0
+ * is tracked in a separate flag. Not thread-safe.
+ */
+public class LongHashSet {
+    
+    private static final long EMPTY = 0L;
+    private static final float MAX_LOAD = 0.6f;
+    
+    private long[] table;
+    private int size;
+    private int resizeAt;
+    private boolean containsZero;
+    
+    public LongHashSet() {
+        this(16);
+    }
+    
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        allocate(capacity);
+    }
+    
+    /** Adds the value; returns false if it was already present. */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = table.length - 1;
+        int slot = mix(value) & mask;
+        while (table[slot] != EMPTY) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        if (++size > resizeAt) {
+            rehash(table.length * 2);
+        }
+        return true;
+    }
+    
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        int mask = table.length - 1;
+        int slot = mix(value) & mask;
+        while (table[slot] != EMPTY) {
+            if (table[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /** The elements in no particular order. */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int count = 0;
+        if (containsZero) {
+            values[count++] = EMPTY;
+        }
+        for (long value : table) {
+            if (value != EMPTY) {
+                values[count++] = value;
+            }
+        }
+        return values;
+    }
+    
+    /** Bytes held by the table, for reporting memory use. */
+    public long footprintBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+    
+    private void rehash(int capacity) {
+        long[] old = table;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value != EMPTY) {
+                int slot = mix(value) & mask;
+                while (table[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+    
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        resizeAt = (int) (capacity * MAX_LOAD);
+    }
+    
+    // Sequential ids would cluster badly under linear probing; spread them first (murmur3 finaliser)
+    private static int mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,130 @@
+package com.github.search;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Object cache of users and repository lists in front of {@link GitHubApiService}, so
+ * revisiting a profile renders straight from memory while a refresh runs in the background.
+ * With a {@link LocalProfileStore}, everything fetched is also kept on disk and profiles seen
+ * in earlier runs are served from there (and refreshed) on first use.
+ */
+public class ProfileCache {
+    
+    private static final int DEFAULT_MAX_USERS = 500;
+    // Repository lists are weighed by their length so a few huge accounts cannot crowd out the rest
+    private static final int DEFAULT_MAX_REPOSITORIES = 20_000;
+    private static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000L;
+    private static final long DEFAULT_STALE_MILLIS = 60 * 60 * 1000L;
+    
+    private final GitHubApiService apiService;
+    private final TtlCache<String, GitHubUser> users;
+    private final TtlCache<String, List<GitHubRepository>> repositories;
+    private final LocalProfileStore store;
+    
+    public ProfileCache(GitHubApiService apiService) {
+        this(apiService, null);
+    }
+    
+    public ProfileCache(GitHubApiService apiService, LocalProfileStore store) {
+        this(apiService, store, DEFAULT_MAX_USERS, DEFAULT_MAX_REPOSITORIES, DEFAULT_TTL_MILLIS, DEFAULT_STALE_MILLIS);
+    }
+    
+    public ProfileCache(GitHubApiService apiService, LocalProfileStore store, int maxUsers, int maxRepositories,
+                        long ttlMillis, long staleMillis) {
+        this.apiService = apiService;
+        this.store = store;
+        this.users = new TtlCache<>(maxUsers, ttlMillis, staleMillis);
+        this.repositories = new TtlCache<>(maxRepositories, list -> Math.max(1, list.size()), ttlMillis, staleMillis);
+    }
+    
+    public GitHubUser getUser(String username) throws Exception {
+        return GitHubApiService.await(getUserAsync(username));
+    }
+    
+    public List<GitHubRepository> getUserRepositories(String username, int limit) throws Exception {
+        return GitHubApiService.await(getUserRepositoriesAsync(username, limit));
+    }
+    
+    public CompletableFuture<GitHubUser> getUserAsync(String username) {
+        String login = key(username);
+        if (store != null && users.getIfPresent(login) == null) {
+            GitHubUser stored = store.getUser(login);
+            if (stored != null) {
+                users.putExpired(login, stored);
+            }
+        }
+        return users.get(login, k -> save(apiService.getUserAsync(k), user -> store.putUser(user)));
+    }
+    
+    public CompletableFuture<List<GitHubRepository>> getUserRepositoriesAsync(String username, int limit) {
+        String login = key(username);
+        String cacheKey = login + "?" + limit;
+        if (store != null && repositories.getIfPresent(cacheKey) == null) {
+            List<GitHubRepository> stored = store.getRepositories(login);
+            if (stored != null) {
+                repositories.putExpired(cacheKey, List.copyOf(stored.subList(0, Math.min(limit, stored.size()))));
+            }
+        }
+        return repositories.get(cacheKey, k -> save(apiService.getUserRepositoriesAsync(login, limit),
+                list -> store.putRepositories(login, list)));
+    }
+    
+    /**
+     * A user and their first {@code limit} repositories. Unless both are already known (in
+     * memory or on disk), they come from a single GraphQL request, which then fills both caches.
+     */
+    public CompletableFuture<GitHubProfile> getProfileAsync(String username, int limit) {
+        String login = key(username);
+        String cacheKey = login + "?" + limit;
+        boolean known = users.getIfPresent(login) != null && repositories.getIfPresent(cacheKey) != null
+                || store != null && store.getUser(login) != null && store.getRepositories(login) != null;
+        if (known) {
+            return getUserAsync(login).thenCombine(getUserRepositoriesAsync(login, limit), GitHubProfile::new);
+        }
+        CompletableFuture<GitHubProfile> load = apiService.getProfileAsync(login, limit,
+                RateLimitScheduler.Priority.INTERACTIVE);
+        return Futures.propagateCancellation(load.thenApply(profile -> {
+            users.put(login, profile.getUser());
+            repositories.put(cacheKey, profile.getRepositories());
+            if (store != null) {
+                store.putUser(profile.getUser());
+                store.putRepositories(login, profile.getRepositories());
+            }
+            return profile;
+        }), load);
+    }
+    
+    public GitHubUser peekUser(String username) {
+        return users.getIfPresent(key(username));
+    }
+    
+    public TtlCache<String, GitHubUser> getUserCache() {
+        return users;
+    }
+    
+    public TtlCache<String, List<GitHubRepository>> getRepositoryCache() {
+        return repositories;
+    }
+    
+    public LocalProfileStore getStore() {
+        return store;
+    }
+    
+    private <T> CompletableFuture<T> save(CompletableFuture<T> load, Consumer<T> writer) {
+        if (store == null) {
+            return load;
+        }
+        return Futures.propagateCancellation(load.thenApply(value -> {
+            writer.accept(value);
+            return value;
+        }), load);
+    }
+    
+    // GitHub logins are case-insensitive
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
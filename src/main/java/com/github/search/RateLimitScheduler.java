@@ -0,0 +1,219 @@
+package com.github.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Paces outgoing GitHub requests so we stay inside the API quota instead of running into it.
+ *
+ * Requests wait in a priority queue (interactive searches ahead of background work) and are
+ * released by a token bucket. The remaining quota and reset time are tracked from the
+ * X-RateLimit-* headers of every response; once the quota is spent, requests are held until
+ * the reset rather than sent to fail. A 403/429 rate-limit response is not surfaced to the
+ * caller either: the request is queued again and retried after Retry-After / the reset.
+ */
+public class RateLimitScheduler {
+    
+    public enum Priority { INTERACTIVE, BACKGROUND }
+    
+    public record Status(int limit, int remaining, long resetEpochSeconds, int queueDepth,
+                         double availableTokens, long pausedUntilEpochMillis) {}
+    
+    private static final int MAX_RATE_LIMIT_RETRIES = 3;
+    // Quota kept back for interactive searches when background work is draining it
+    private static final int INTERACTIVE_RESERVE = 5;
+    private static final long RESET_MARGIN_MILLIS = 1000;
+    private static final long MAX_IDLE_WAIT_MILLIS = 250;
+    
+    private final double tokensPerSecond;
+    private final double burst;
+    private final PriorityBlockingQueue<Job<?>> queue = new PriorityBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    
+    private double tokens;
+    private long lastRefillNanos;
+    private volatile int limit = -1;
+    private volatile int remaining = -1;
+    private volatile long resetAtMillis;
+    private volatile long pausedUntilMillis;
+    
+    public RateLimitScheduler(double tokensPerSecond, int burst) {
+        this.tokensPerSecond = tokensPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+        
+        Thread dispatcher = new Thread(this::dispatchLoop, "github-rate-limit-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+    
+    public <T> CompletableFuture<HttpResponse<T>> submit(Priority priority,
+                                                         Supplier<CompletableFuture<HttpResponse<T>>> request) {
+        Job<T> job = new Job<>(priority, sequence.getAndIncrement(), request);
+        queue.put(job);
+        return job.result;
+    }
+    
+    public Status getStatus() {
+        double available;
+        synchronized (this) {
+            refill();
+            available = tokens;
+        }
+        return new Status(limit, remaining, resetAtMillis / 1000, queue.size(), available, pausedUntilMillis);
+    }
+    
+    private void dispatchLoop() {
+        while (true) {
+            try {
+                Job<?> job = queue.take();
+                if (job.result.isDone()) {
+                    // Cancelled while queued
+                    continue;
+                }
+                long wait = waitMillis(job.priority);
+                if (wait > 0) {
+                    // Put it back and look again shortly: a more urgent job may arrive meanwhile
+                    queue.put(job);
+                    Thread.sleep(Math.min(wait, MAX_IDLE_WAIT_MILLIS));
+                    continue;
+                }
+                dispatch(job);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    private synchronized long waitMillis(Priority priority) {
+        long now = System.currentTimeMillis();
+        if (now < pausedUntilMillis) {
+            return pausedUntilMillis - now;
+        }
+        if (remaining >= 0 && now < resetAtMillis) {
+            if (remaining == 0) {
+                return resetAtMillis - now + RESET_MARGIN_MILLIS;
+            }
+            if (priority == Priority.BACKGROUND && remaining <= INTERACTIVE_RESERVE) {
+                return resetAtMillis - now + RESET_MARGIN_MILLIS;
+            }
+        }
+        refill();
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerSecond * 1000);
+    }
+    
+    private void refill() {
+        long nowNanos = System.nanoTime();
+        tokens = Math.min(burst, tokens + (nowNanos - lastRefillNanos) / 1e9 * tokensPerSecond);
+        lastRefillNanos = nowNanos;
+    }
+    
+    private <T> void dispatch(Job<T> job) {
+        synchronized (this) {
+            tokens -= 1;
+            if (remaining > 0) {
+                remaining--;
+            }
+        }
+        CompletableFuture<HttpResponse<T>> inFlight;
+        try {
+            inFlight = job.request.get();
+        } catch (RuntimeException e) {
+            // Fail this request only; the dispatcher thread serves every other one
+            job.result.completeExceptionally(e);
+            return;
+        }
+        job.result.whenComplete((response, error) -> {
+            if (job.result.isCancelled()) {
+                inFlight.cancel(true);
+            }
+        });
+        inFlight.whenComplete((response, error) -> {
+            if (error != null) {
+                job.result.completeExceptionally(error);
+                return;
+            }
+            long retryAfter = onResponse(response);
+            if (retryAfter >= 0 && job.attempts++ < MAX_RATE_LIMIT_RETRIES) {
+                closeQuietly(response.body());
+                queue.put(job);
+            } else {
+                job.result.complete(response);
+            }
+        });
+    }
+    
+    // Records the quota headers; returns how long to back off if this was a rate-limit rejection, else -1.
+    private long onResponse(HttpResponse<?> response) {
+        HttpHeaders headers = response.headers();
+        long now = System.currentTimeMillis();
+        headers.firstValueAsLong("X-RateLimit-Limit").ifPresent(value -> limit = (int) value);
+        headers.firstValueAsLong("X-RateLimit-Remaining").ifPresent(value -> remaining = (int) value);
+        headers.firstValueAsLong("X-RateLimit-Reset").ifPresent(value -> resetAtMillis = value * 1000);
+        
+        int status = response.statusCode();
+        boolean quotaExhausted = status == 403 && remaining == 0;
+        long retryAfterSeconds = retryAfterSeconds(headers);
+        if (status != 429 && !quotaExhausted && !(status == 403 && retryAfterSeconds >= 0)) {
+            return -1;
+        }
+        
+        long until = retryAfterSeconds >= 0
+                ? now + retryAfterSeconds * 1000
+                : Math.max(resetAtMillis + RESET_MARGIN_MILLIS, now + RESET_MARGIN_MILLIS);
+        synchronized (this) {
+            pausedUntilMillis = Math.max(pausedUntilMillis, until);
+        }
+        return until - now;
+    }
+    
+    // GitHub sends delta-seconds; anything else (e.g. an HTTP date) falls back to the reset time
+    private static long retryAfterSeconds(HttpHeaders headers) {
+        try {
+            return headers.firstValueAsLong("Retry-After").orElse(-1);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private static void closeQuietly(Object body) {
+        if (body instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // Nothing useful to do with a body we are throwing away
+            }
+        }
+    }
+    
+    private static class Job<T> implements Comparable<Job<?>> {
+        final Priority priority;
+        final long sequence;
+        final Supplier<CompletableFuture<HttpResponse<T>>> request;
+        final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        int attempts;
+        
+        Job(Priority priority, long sequence, Supplier<CompletableFuture<HttpResponse<T>>> request) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.request = request;
+        }
+        
+        @Override
+        public int compareTo(Job<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
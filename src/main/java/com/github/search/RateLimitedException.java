@@ -0,0 +1,17 @@
+package com.github.search;
+
+/** 403/429 from the rate limiter that was still refused after the scheduler's own retries. */
+public class RateLimitedException extends GitHubApiException {
+    
+    private final long resetEpochSeconds;
+    
+    public RateLimitedException(int statusCode, long resetEpochSeconds) {
+        super("Rate limited (HTTP " + statusCode + ")", statusCode);
+        this.resetEpochSeconds = resetEpochSeconds;
+    }
+    
+    /** When the quota resets, from X-RateLimit-Reset, or 0 if GitHub did not say. */
+    public long getResetEpochSeconds() {
+        return resetEpochSeconds;
+    }
+}
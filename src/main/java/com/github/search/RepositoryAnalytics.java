@@ -0,0 +1,247 @@
+package com.github.search;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Aggregates over a profile's repositories: totals, language breakdown, most-starred and how
+ * recently they were updated.
+ *
+ * Numeric fields are copied into primitive column arrays as pages arrive. Totals and the
+ * per-language counts are kept up to date on every {@link #addAll}; the top-k and recency
+ * scans run over the columns with a parallel stream once there are enough rows to be worth it.
+ */
+public class RepositoryAnalytics {
+    
+    public enum Recency { LAST_MONTH, LAST_SIX_MONTHS, LAST_YEAR, LAST_THREE_YEARS, OLDER, UNKNOWN }
+    
+    private static final int PARALLEL_THRESHOLD = 10_000;
+    private static final long DAY_SECONDS = 24 * 60 * 60;
+    private static final long[] RECENCY_LIMITS_SECONDS = {
+        30 * DAY_SECONDS, 182 * DAY_SECONDS, 365 * DAY_SECONDS, 3 * 365 * DAY_SECONDS
+    };
+    
+    // Columns, one row per repository
+    private GitHubRepository[] repositories = new GitHubRepository[64];
+    private int[] stars = new int[64];
+    private int[] forks = new int[64];
+    private long[] updatedEpochSeconds = new long[64];
+    private int size;
+    
+    private final Set<Integer> ids = new HashSet<>();
+    private final Map<String, Integer> languageIndex = new HashMap<>();
+    private final List<String> languageNames = new ArrayList<>();
+    private int[] languageRepositories = new int[16];
+    private long[] languageStars = new long[16];
+    private long totalStars;
+    private long totalForks;
+    
+    /** Adds repositories not seen before; returns how many were new. */
+    public synchronized int addAll(List<GitHubRepository> page) {
+        int added = 0;
+        for (GitHubRepository repository : page) {
+            if (!ids.add(repository.getId())) {
+                continue;
+            }
+            if (size == stars.length) {
+                grow();
+            }
+            int language = languageId(repository.getLanguage());
+            repositories[size] = repository;
+            stars[size] = repository.getStargazersCount();
+            forks[size] = repository.getForksCount();
+            updatedEpochSeconds[size] = repository.getUpdatedAtEpochSeconds();
+            size++;
+            
+            totalStars += repository.getStargazersCount();
+            totalForks += repository.getForksCount();
+            languageRepositories[language]++;
+            languageStars[language] += repository.getStargazersCount();
+            added++;
+        }
+        return added;
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+    
+    public Summary summarize(int topCount) {
+        return summarize(topCount, Instant.now().getEpochSecond());
+    }
+    
+    public Summary summarize(int topCount, long nowEpochSeconds) {
+        // Snapshot the columns so the scans run without holding the lock; rows are never modified
+        int n;
+        GitHubRepository[] rows;
+        int[] starColumn;
+        long[] updatedColumn;
+        List<LanguageShare> languages = new ArrayList<>();
+        long stargazers;
+        long forkCount;
+        synchronized (this) {
+            n = size;
+            rows = repositories;
+            starColumn = stars;
+            updatedColumn = updatedEpochSeconds;
+            stargazers = totalStars;
+            forkCount = totalForks;
+            for (int i = 0; i < languageNames.size(); i++) {
+                languages.add(new LanguageShare(languageNames.get(i), languageRepositories[i], languageStars[i]));
+            }
+        }
+        languages.sort((a, b) -> a.getRepositories() != b.getRepositories()
+                ? Integer.compare(b.getRepositories(), a.getRepositories())
+                : a.getLanguage().compareTo(b.getLanguage()));
+        
+        IntStream indices = IntStream.range(0, n);
+        if (n >= PARALLEL_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        TopK top = indices.collect(() -> new TopK(topCount, starColumn),
+                TopK::offer, TopK::merge);
+        
+        IntStream recencyIndices = IntStream.range(0, n);
+        if (n >= PARALLEL_THRESHOLD) {
+            recencyIndices = recencyIndices.parallel();
+        }
+        int[] recency = recencyIndices.collect(() -> new int[Recency.values().length],
+                (counts, i) -> counts[recencyOf(updatedColumn[i], nowEpochSeconds).ordinal()]++,
+                (left, right) -> {
+                    for (int b = 0; b < left.length; b++) {
+                        left[b] += right[b];
+                    }
+                });
+        
+        List<GitHubRepository> mostStarred = new ArrayList<>(top.size);
+        for (int i = 0; i < top.size; i++) {
+            mostStarred.add(rows[top.rows[i]]);
+        }
+        return new Summary(n, stargazers, forkCount, Collections.unmodifiableList(languages),
+                Collections.unmodifiableList(mostStarred), recency);
+    }
+    
+    private static Recency recencyOf(long updated, long now) {
+        if (updated == Timestamps.UNKNOWN) {
+            return Recency.UNKNOWN;
+        }
+        long age = now - updated;
+        for (int i = 0; i < RECENCY_LIMITS_SECONDS.length; i++) {
+            if (age <= RECENCY_LIMITS_SECONDS[i]) {
+                return Recency.values()[i];
+            }
+        }
+        return Recency.OLDER;
+    }
+    
+    private int languageId(String language) {
+        String name = language != null ? language : "Other";
+        Integer id = languageIndex.get(name);
+        if (id == null) {
+            id = languageNames.size();
+            languageIndex.put(name, id);
+            languageNames.add(name);
+            if (id == languageRepositories.length) {
+                languageRepositories = Arrays.copyOf(languageRepositories, id * 2);
+                languageStars = Arrays.copyOf(languageStars, id * 2);
+            }
+        }
+        return id;
+    }
+    
+    // New arrays rather than in-place growth, so snapshots taken by summarize stay valid
+    private void grow() {
+        int capacity = stars.length * 2;
+        repositories = Arrays.copyOf(repositories, capacity);
+        stars = Arrays.copyOf(stars, capacity);
+        forks = Arrays.copyOf(forks, capacity);
+        updatedEpochSeconds = Arrays.copyOf(updatedEpochSeconds, capacity);
+    }
+    
+    // Row indices of the k largest star counts, kept sorted descending in primitive arrays
+    private static final class TopK {
+        final int[] rows;
+        final int[] values;
+        final int[] starColumn;
+        int size;
+        
+        TopK(int k, int[] starColumn) {
+            this.rows = new int[k];
+            this.values = new int[k];
+            this.starColumn = starColumn;
+        }
+        
+        void offer(int row) {
+            int value = starColumn[row];
+            if (size == rows.length && (size == 0 || value <= values[size - 1])) {
+                return;
+            }
+            int slot = size < rows.length ? size++ : size - 1;
+            while (slot > 0 && values[slot - 1] < value) {
+                rows[slot] = rows[slot - 1];
+                values[slot] = values[slot - 1];
+                slot--;
+            }
+            rows[slot] = row;
+            values[slot] = value;
+        }
+        
+        void merge(TopK other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.rows[i]);
+            }
+        }
+    }
+    
+    public static class LanguageShare {
+        private final String language;
+        private final int repositories;
+        private final long stars;
+        
+        public LanguageShare(String language, int repositories, long stars) {
+            this.language = language;
+            this.repositories = repositories;
+            this.stars = stars;
+        }
+        
+        // Getters
+        public String getLanguage() { return language; }
+        public int getRepositories() { return repositories; }
+        public long getStars() { return stars; }
+    }
+    
+    public static class Summary {
+        private final int repositoryCount;
+        private final long totalStars;
+        private final long totalForks;
+        private final List<LanguageShare> languages;
+        private final List<GitHubRepository> mostStarred;
+        private final int[] recency;
+        
+        Summary(int repositoryCount, long totalStars, long totalForks, List<LanguageShare> languages,
+                List<GitHubRepository> mostStarred, int[] recency) {
+            this.repositoryCount = repositoryCount;
+            this.totalStars = totalStars;
+            this.totalForks = totalForks;
+            this.languages = languages;
+            this.mostStarred = mostStarred;
+            this.recency = recency;
+        }
+        
+        // Getters
+        public int getRepositoryCount() { return repositoryCount; }
+        public long getTotalStars() { return totalStars; }
+        public long getTotalForks() { return totalForks; }
+        public List<LanguageShare> getLanguages() { return languages; }
+        public List<GitHubRepository> getMostStarred() { return mostStarred; }
+        public int getRecencyCount(Recency bucket) { return recency[bucket.ordinal()]; }
+    }
+}
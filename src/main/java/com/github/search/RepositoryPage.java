@@ -0,0 +1,24 @@
+package com.github.search;
+
+import java.util.List;
+
+public class RepositoryPage {
+    private final int page;
+    private final List<GitHubRepository> repositories;
+    private final int lastPage;
+    private final boolean hasNext;
+    
+    public RepositoryPage(int page, List<GitHubRepository> repositories, int lastPage, boolean hasNext) {
+        this.page = page;
+        this.repositories = repositories;
+        this.lastPage = lastPage;
+        this.hasNext = hasNext;
+    }
+    
+    // Getters
+    public int getPage() { return page; }
+    public List<GitHubRepository> getRepositories() { return repositories; }
+    /** Last page number from the Link header, or -1 if GitHub did not send one. */
+    public int getLastPage() { return lastPage; }
+    public boolean hasNext() { return hasNext; }
+}
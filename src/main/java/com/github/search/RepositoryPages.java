@@ -0,0 +1,121 @@
+package com.github.search;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily walks every page of a user's repositories, one list per page, in page order.
+ *
+ * The first page is requested immediately. As soon as its Link header reveals the last page
+ * number, later pages are fetched in parallel, with at most {@code maxConcurrency} fetched
+ * but not yet consumed, so callers can work on page 1 while the rest download. If GitHub
+ * only advertises {@code rel="next"}, pages are followed one at a time.
+ */
+public class RepositoryPages implements Iterator<List<GitHubRepository>>, AutoCloseable {
+    
+    private final GitHubApiService apiService;
+    private final String username;
+    private final int perPage;
+    private int maxConcurrency;
+    private final RateLimitScheduler.Priority priority;
+    
+    private final ArrayDeque<CompletableFuture<RepositoryPage>> pending = new ArrayDeque<>();
+    private int nextPageToFetch = 1;
+    private int knownLastPage = 1;
+    private boolean closed;
+    
+    public RepositoryPages(GitHubApiService apiService, String username, int perPage, int maxConcurrency,
+                           RateLimitScheduler.Priority priority) {
+        this.apiService = apiService;
+        this.username = username;
+        this.perPage = perPage;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.priority = priority;
+        fill();
+    }
+    
+    @Override
+    public synchronized boolean hasNext() {
+        return !closed && (!pending.isEmpty() || nextPageToFetch <= knownLastPage);
+    }
+    
+    @Override
+    public List<GitHubRepository> next() {
+        CompletableFuture<RepositoryPage> head;
+        synchronized (this) {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            head = pending.poll();
+            if (head == null) {
+                fill();
+                head = pending.poll();
+            }
+        }
+        RepositoryPage page = head.join();
+        synchronized (this) {
+            learn(page);
+            fill();
+        }
+        return page.getRepositories();
+    }
+    
+    /** Allows more (or fewer) pages in flight from now on; raising it starts the extra fetches at once. */
+    public synchronized void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        fill();
+    }
+    
+    /** Every repository across all pages, fetched as the stream is consumed. */
+    public Stream<GitHubRepository> stream() {
+        Spliterator<List<GitHubRepository>> pages = Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(pages, false)
+                .flatMap(List::stream)
+                .onClose(this::close);
+    }
+    
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (CompletableFuture<RepositoryPage> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+    }
+    
+    private void learn(RepositoryPage page) {
+        if (page.getLastPage() > knownLastPage) {
+            knownLastPage = page.getLastPage();
+        }
+        if (page.hasNext() && page.getPage() + 1 > knownLastPage) {
+            knownLastPage = page.getPage() + 1;
+        }
+    }
+    
+    private void fill() {
+        while (!closed && pending.size() < maxConcurrency && nextPageToFetch <= knownLastPage) {
+            int pageNumber = nextPageToFetch++;
+            CompletableFuture<RepositoryPage> future =
+                    apiService.getRepositoryPageAsync(username, pageNumber, perPage, priority);
+            pending.add(future);
+            if (pageNumber == 1) {
+                // Start the parallel fetch as soon as page 1 tells us how many pages exist,
+                // without waiting for the consumer to ask for it
+                future.thenAccept(page -> {
+                    synchronized (this) {
+                        learn(page);
+                        fill();
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.search;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list of repositories stored column by column (structure of arrays).
+ *
+ * A cached list costs one array slot per field instead of one object per repository, and the
+ * numeric columns are plain primitive arrays. Repository URLs are normally the owner's URL plus
+ * the name, so that prefix is kept once and only URLs that do not follow it are stored per row.
+ * {@link #get} builds a {@link GitHubRepository}
+ * on demand, so callers that keep elements should hold on to what they got rather than
+ * expecting the same instance twice.
+ */
+public final class RepositoryTable extends AbstractList<GitHubRepository> implements RandomAccess {
+    
+    private int[] ids;
+    private String[] names;
+    private String[] descriptions;
+    // Null where the URL is urlPrefix + name
+    private String[] htmlUrls;
+    private String urlPrefix;
+    private int[] stars;
+    private int[] forks;
+    private short[] languages;
+    private long[] updated;
+    private int size;
+    
+    RepositoryTable(int capacity) {
+        int initial = Math.max(1, capacity);
+        ids = new int[initial];
+        names = new String[initial];
+        descriptions = new String[initial];
+        htmlUrls = new String[initial];
+        stars = new int[initial];
+        forks = new int[initial];
+        languages = new short[initial];
+        updated = new long[initial];
+    }
+    
+    public static RepositoryTable of(List<GitHubRepository> repositories) {
+        if (repositories instanceof RepositoryTable table) {
+            return table;
+        }
+        RepositoryTable table = new RepositoryTable(repositories.size());
+        for (GitHubRepository repository : repositories) {
+            table.append(repository);
+        }
+        return table;
+    }
+    
+    @Override
+    public GitHubRepository get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return new GitHubRepository(ids[index], names[index], descriptions[index], htmlUrl(index),
+                stars[index], forks[index], languages[index], updated[index]);
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    // Column access without building a repository
+    public int getId(int index) { return ids[index]; }
+    public int getStargazersCount(int index) { return stars[index]; }
+    public int getForksCount(int index) { return forks[index]; }
+    public short getLanguageId(int index) { return languages[index]; }
+    public long getUpdatedAtEpochSeconds(int index) { return updated[index]; }
+    
+    // Only used while the table is being built, before it is handed out
+    void append(GitHubRepository repository) {
+        if (size == ids.length) {
+            grow(size * 2);
+        }
+        ids[size] = repository.getId();
+        names[size] = repository.getName();
+        descriptions[size] = repository.getDescription();
+        htmlUrls[size] = compressUrl(repository.getHtmlUrl(), repository.getName());
+        stars[size] = repository.getStargazersCount();
+        forks[size] = repository.getForksCount();
+        languages[size] = repository.getLanguageId();
+        updated[size] = repository.getUpdatedAtEpochSeconds();
+        size++;
+    }
+    
+    private String htmlUrl(int index) {
+        return htmlUrls[index] != null || names[index] == null ? htmlUrls[index] : urlPrefix + names[index];
+    }
+    
+    private String compressUrl(String htmlUrl, String name) {
+        if (htmlUrl == null || name == null || !htmlUrl.endsWith(name)
+                || htmlUrl.length() == name.length() || htmlUrl.charAt(htmlUrl.length() - name.length() - 1) != '/') {
+            return htmlUrl;
+        }
+        int prefixLength = htmlUrl.length() - name.length();
+        if (urlPrefix == null) {
+            urlPrefix = htmlUrl.substring(0, prefixLength);
+            return null;
+        }
+        return urlPrefix.length() == prefixLength && htmlUrl.startsWith(urlPrefix) ? null : htmlUrl;
+    }
+    
+    /** Drops unused capacity once building is done. */
+    RepositoryTable trim() {
+        if (size < ids.length) {
+            grow(Math.max(1, size));
+        }
+        return this;
+    }
+    
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        htmlUrls = Arrays.copyOf(htmlUrls, capacity);
+        stars = Arrays.copyOf(stars, capacity);
+        forks = Arrays.copyOf(forks, capacity);
+        languages = Arrays.copyOf(languages, capacity);
+        updated = Arrays.copyOf(updated, capacity);
+    }
+}
@@ -0,0 +1,296 @@
+package com.github.search;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * HTTP response cache keyed by URL. Entries keep the validators (ETag / Last-Modified)
+ * so the next request can be made conditional, plus the parsed object so a 304 does not
+ * have to run JSON parsing again. The in-memory tier is a bounded LRU; the optional disk
+ * tier keeps raw bodies across restarts and is parsed lazily on first use. The disk tier is
+ * held to a byte budget: when a write takes it over, the least recently used files (by
+ * modification time, bumped on every read) are deleted until it is back to three quarters
+ * of the budget, so the directory is not rescanned on every write.
+ */
+public class ResponseCache {
+    
+    private static final int DISK_FORMAT_VERSION = 1;
+    private static final long DEFAULT_MAX_DISK_BYTES = 64L * 1024 * 1024;
+    
+    private final int maxEntries;
+    private final Path diskDirectory;
+    private final long maxDiskBytes;
+    private final Map<String, Entry> memory;
+    // Guarded by diskDirectory
+    private long diskBytes;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    
+    public ResponseCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+    
+    public ResponseCache(int maxEntries, Path diskDirectory) {
+        this(maxEntries, diskDirectory, DEFAULT_MAX_DISK_BYTES);
+    }
+    
+    public ResponseCache(int maxEntries, Path diskDirectory, long maxDiskBytes) {
+        this.maxEntries = maxEntries;
+        this.diskDirectory = diskDirectory;
+        this.maxDiskBytes = maxDiskBytes;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ResponseCache.this.maxEntries;
+            }
+        };
+        if (diskDirectory != null) {
+            try {
+                Files.createDirectories(diskDirectory);
+            } catch (IOException e) {
+                System.err.println("Failed to create HTTP cache directory: " + e.getMessage());
+            }
+            pruneDisk(maxDiskBytes);
+        }
+    }
+    
+    public Entry get(String url) {
+        synchronized (memory) {
+            Entry entry = memory.get(url);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        Entry fromDisk = readFromDisk(url);
+        if (fromDisk != null) {
+            synchronized (memory) {
+                memory.putIfAbsent(url, fromDisk);
+            }
+        }
+        return fromDisk;
+    }
+    
+    public Entry put(String url, String etag, String lastModified, long maxAgeMillis, byte[] body, Object value) {
+        if (etag == null && lastModified == null && maxAgeMillis <= 0) {
+            // Nothing to revalidate against and not cacheable for any time: not worth keeping
+            return null;
+        }
+        Entry entry = new Entry(url, etag, lastModified, body, value);
+        entry.refresh(maxAgeMillis);
+        synchronized (memory) {
+            memory.put(url, entry);
+        }
+        writeToDisk(entry);
+        return entry;
+    }
+    
+    public boolean hasDiskTier() {
+        return diskDirectory != null;
+    }
+    
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+    }
+    
+    public int size() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+    
+    public long getDiskBytes() {
+        if (diskDirectory == null) {
+            return 0;
+        }
+        synchronized (diskDirectory) {
+            return diskBytes;
+        }
+    }
+    
+    void recordHit() { hits.increment(); }
+    void recordRevalidation() { revalidations.increment(); }
+    void recordMiss() { misses.increment(); }
+    
+    /** Served without touching the network because the entry was still fresh. */
+    public long getHitCount() { return hits.sum(); }
+    /** Served from the stored object after the server answered 304 Not Modified. */
+    public long getRevalidationCount() { return revalidations.sum(); }
+    /** Full 200 responses that had to be downloaded and parsed. */
+    public long getMissCount() { return misses.sum(); }
+    
+    private Path diskPath(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(url.getBytes(StandardCharsets.UTF_8));
+            return diskDirectory.resolve(HexFormat.of().formatHex(hash) + ".cache");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private void writeToDisk(Entry entry) {
+        if (diskDirectory == null || entry.body == null) {
+            return;
+        }
+        Path target = diskPath(entry.url);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        long previousSize = fileSize(target);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(DISK_FORMAT_VERSION);
+            out.writeUTF(entry.url);
+            out.writeUTF(entry.etag != null ? entry.etag : "");
+            out.writeUTF(entry.lastModified != null ? entry.lastModified : "");
+            out.writeInt(entry.body.length);
+            out.write(entry.body);
+        } catch (IOException e) {
+            System.err.println("Failed to write HTTP cache entry: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to write HTTP cache entry: " + e.getMessage());
+            return;
+        }
+        boolean overBudget;
+        synchronized (diskDirectory) {
+            diskBytes += fileSize(target) - previousSize;
+            overBudget = diskBytes > maxDiskBytes;
+        }
+        if (overBudget) {
+            pruneDisk(maxDiskBytes / 4 * 3);
+        }
+    }
+    
+    // Deletes the least recently used files until the directory holds at most targetBytes
+    private void pruneDisk(long targetBytes) {
+        synchronized (diskDirectory) {
+            List<Path> files = new ArrayList<>();
+            Map<Path, Long> usedAt = new HashMap<>();
+            long total = 0;
+            try (Stream<Path> listing = Files.list(diskDirectory)) {
+                for (Path file : (Iterable<Path>) listing::iterator) {
+                    try {
+                        if (file.getFileName().toString().endsWith(".tmp")) {
+                            Files.deleteIfExists(file);
+                        } else if (file.getFileName().toString().endsWith(".cache")) {
+                            usedAt.put(file, Files.getLastModifiedTime(file).toMillis());
+                            total += Files.size(file);
+                            files.add(file);
+                        }
+                    } catch (IOException e) {
+                        // Replaced or deleted concurrently; counted on the next prune
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to list HTTP cache: " + e.getMessage());
+                return;
+            }
+            
+            files.sort(Comparator.comparing(usedAt::get));
+            for (int i = 0; i < files.size() && total > targetBytes; i++) {
+                long size = fileSize(files.get(i));
+                try {
+                    Files.deleteIfExists(files.get(i));
+                    total -= size;
+                } catch (IOException e) {
+                    // Still open on some platforms; tried again on the next prune
+                }
+            }
+            diskBytes = total;
+        }
+    }
+    
+    // Marks the file as recently used for pruning
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only affects which entry is pruned first
+        }
+    }
+    
+    private static long fileSize(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    private Entry readFromDisk(String url) {
+        if (diskDirectory == null) {
+            return null;
+        }
+        Path path = diskPath(url);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != DISK_FORMAT_VERSION || !url.equals(in.readUTF())) {
+                return null;
+            }
+            String etag = in.readUTF();
+            String lastModified = in.readUTF();
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            touch(path);
+            // Freshness is not persisted: anything loaded from disk must be revalidated first
+            return new Entry(url, etag.isEmpty() ? null : etag, lastModified.isEmpty() ? null : lastModified,
+                    body, null);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    public static class Entry {
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private final byte[] body;
+        private volatile Object value;
+        private volatile long freshUntil;
+        
+        Entry(String url, String etag, String lastModified, byte[] body, Object value) {
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+            this.value = value;
+        }
+        
+        public String getEtag() { return etag; }
+        public String getLastModified() { return lastModified; }
+        public byte[] getBody() { return body; }
+        public Object getValue() { return value; }
+        
+        void setValue(Object value) { this.value = value; }
+        
+        boolean isFresh() {
+            return value != null && System.currentTimeMillis() < freshUntil;
+        }
+        
+        void refresh(long maxAgeMillis) {
+            this.freshUntil = System.currentTimeMillis() + Math.max(0, maxAgeMillis);
+        }
+    }
+}
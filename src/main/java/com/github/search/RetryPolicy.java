@@ -0,0 +1,51 @@
+package com.github.search;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * When and how soon to send a failed GET again: server errors, timeouts and dropped
+ * connections are retried with exponential backoff and full jitter, so clients that failed
+ * together do not come back together. Client errors (404, rate limits) are never retried here.
+ */
+public class RetryPolicy {
+    
+    /** Every request is sent once. */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0);
+    
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+    
+    public static RetryPolicy defaults() {
+        return new RetryPolicy(3, 200, 5000);
+    }
+    
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+    
+    /** Whether to try again after {@code attempt} (1-based) failed with {@code failure}. */
+    public boolean shouldRetry(Throwable failure, int attempt) {
+        return attempt < maxAttempts && isRetryable(failure);
+    }
+    
+    /** Random delay in [0, min(max, base * 2^(attempt - 1))]. */
+    public long delayMillis(int attempt) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+    
+    public static boolean isRetryable(Throwable failure) {
+        if (failure instanceof GitHubApiException api) {
+            return api.isRetryable();
+        }
+        return failure instanceof IOException;
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.search;
+
+/** 5xx: GitHub failed to answer; usually transient. */
+public class ServerErrorException extends GitHubApiException {
+    
+    public ServerErrorException(int statusCode) {
+        super("Server error (HTTP " + statusCode + ")", statusCode);
+    }
+    
+    @Override
+    public boolean isRetryable() {
+        return true;
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.search;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key onto one in-flight request.
+ *
+ * Every caller gets its own dependent future, so one caller cancelling does not fail
+ * the others; the shared request is only cancelled once every caller has given up on it.
+ */
+public class SingleFlight<K, V> {
+    
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> request) {
+        while (true) {
+            Flight<V> flight = inFlight.get(key);
+            if (flight == null) {
+                Flight<V> created = new Flight<>();
+                if (inFlight.putIfAbsent(key, created) != null) {
+                    continue;
+                }
+                executed.increment();
+                created.join();
+                CompletableFuture<V> shared;
+                try {
+                    shared = request.get();
+                } catch (RuntimeException e) {
+                    shared = CompletableFuture.failedFuture(e);
+                }
+                created.start(shared, () -> inFlight.remove(key, created));
+                return created.follow();
+            }
+            if (flight.join()) {
+                deduplicated.increment();
+                return flight.follow();
+            }
+            // Flight was abandoned by all of its callers while we looked at it; start a new one
+            inFlight.remove(key, flight);
+        }
+    }
+    
+    public int getInFlightCount() { return inFlight.size(); }
+    public long getExecutedCount() { return executed.sum(); }
+    public long getDeduplicatedCount() { return deduplicated.sum(); }
+    
+    private static class Flight<V> {
+        private final CompletableFuture<V> ready = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+        private volatile CompletableFuture<V> shared;
+        
+        boolean join() {
+            int current;
+            do {
+                current = waiters.get();
+                if (current < 0) {
+                    return false;
+                }
+            } while (!waiters.compareAndSet(current, current + 1));
+            return true;
+        }
+        
+        void start(CompletableFuture<V> shared, Runnable onDone) {
+            this.shared = shared;
+            shared.whenComplete((value, error) -> {
+                onDone.run();
+                if (error != null) {
+                    ready.completeExceptionally(error);
+                } else {
+                    ready.complete(value);
+                }
+            });
+        }
+        
+        CompletableFuture<V> follow() {
+            CompletableFuture<V> copy = ready.copy();
+            copy.whenComplete((value, error) -> {
+                if (copy.isCancelled() && waiters.decrementAndGet() == 0 && waiters.compareAndSet(0, -1)) {
+                    // Nobody is waiting any more: stop the real request and refuse new joiners
+                    CompletableFuture<V> request = shared;
+                    if (request != null) {
+                        request.cancel(true);
+                    }
+                }
+            });
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.search;
+
+import java.util.HashSet;
+import java.util.Set;
+import javafx.application.Platform;
+
+/**
+ * Launch milestones, for the startup benchmark.
+ *
+ * Started with {@code -Dgithub.startup.benchmark=<login>}, the app searches for that login as
+ * soon as its window is up, prints each milestone once to stdout as
+ * {@code startup <milestone> <epoch millis>} and quits when the search is done. Without the
+ * property nothing here does anything.
+ */
+final class StartupTrace {
+    
+    static final String BENCHMARK_PROPERTY = "github.startup.benchmark";
+    
+    private static final String LOGIN = System.getProperty(BENCHMARK_PROPERTY);
+    private static final Set<String> marked = new HashSet<>();
+    
+    private StartupTrace() {
+    }
+    
+    static boolean isEnabled() {
+        return LOGIN != null;
+    }
+    
+    /** The login to search for at startup. */
+    static String getLogin() {
+        return LOGIN;
+    }
+    
+    static void mark(String milestone) {
+        if (LOGIN == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (marked) {
+            if (!marked.add(milestone)) {
+                return;
+            }
+        }
+        System.out.println("startup " + milestone + " " + now);
+        System.out.flush();
+    }
+    
+    /** The startup search ended with {@code milestone}: record it and quit. */
+    static void finish(String milestone) {
+        mark(milestone);
+        Platform.exit();
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.search;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Adds up the time spent blocked in reads, which for a response body is the download time
+ * even when the parser pulls from the stream as it goes.
+ */
+class TimedInputStream extends FilterInputStream {
+    
+    private long readNanos;
+    
+    TimedInputStream(InputStream in) {
+        super(in);
+    }
+    
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        try {
+            return super.read();
+        } finally {
+            readNanos += System.nanoTime() - start;
+        }
+    }
+    
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return super.read(buffer, offset, length);
+        } finally {
+            readNanos += System.nanoTime() - start;
+        }
+    }
+    
+    long getReadNanos() {
+        return readNanos;
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.search;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * GitHub timestamps as epoch seconds, so the models keep a {@code long} instead of a
+ * 20-character string per date.
+ */
+public final class Timestamps {
+    
+    /** Stands for a missing or unparseable timestamp. */
+    public static final long UNKNOWN = Long.MIN_VALUE;
+    
+    private static final long DAY_SECONDS = 24 * 60 * 60;
+    
+    private Timestamps() {
+    }
+    
+    // GitHub timestamps are always "yyyy-MM-ddTHH:mm:ssZ"; read the digits directly instead of
+    // going through a formatter for every row
+    public static long parse(String value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+        if (value.length() == 20 && value.charAt(4) == '-' && value.charAt(10) == 'T' && value.charAt(19) == 'Z') {
+            try {
+                long days = LocalDate.of(digits(value, 0, 4), digits(value, 5, 7), digits(value, 8, 10)).toEpochDay();
+                return days * DAY_SECONDS + digits(value, 11, 13) * 3600L + digits(value, 14, 16) * 60L
+                        + digits(value, 17, 19);
+            } catch (RuntimeException e) {
+                // Fall through to the general parser
+            }
+        }
+        try {
+            return Instant.parse(value).getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return UNKNOWN;
+        }
+    }
+    
+    /** The ISO-8601 form GitHub uses, or null for {@link #UNKNOWN}. */
+    public static String format(long epochSeconds) {
+        return epochSeconds == UNKNOWN ? null : Instant.ofEpochSecond(epochSeconds).toString();
+    }
+    
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException(value);
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+}
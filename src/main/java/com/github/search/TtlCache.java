@@ -0,0 +1,161 @@
+package com.github.search;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded LRU cache with per-entry time-to-live and stale-while-revalidate reads.
+ * A value younger than the TTL is returned as is; an older one is still returned
+ * (within the stale window) while a single background reload replaces it.
+ */
+public class TtlCache<K, V> {
+    
+    private final long maxWeight;
+    private final ToIntFunction<V> weigher;
+    private final long ttlMillis;
+    private final long staleMillis;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    public TtlCache(int maxEntries, long ttlMillis, long staleMillis) {
+        this(maxEntries, value -> 1, ttlMillis, staleMillis);
+    }
+    
+    public TtlCache(long maxWeight, ToIntFunction<V> weigher, long ttlMillis, long staleMillis) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.ttlMillis = ttlMillis;
+        this.staleMillis = staleMillis;
+    }
+    
+    public CompletableFuture<V> get(K key, Function<K, CompletableFuture<V>> loader) {
+        long now = System.currentTimeMillis();
+        Entry<V> entry;
+        boolean refresh = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && now - entry.loadedAt > ttlMillis + staleMillis) {
+                // Too old even to serve stale
+                remove(key);
+                entry = null;
+            }
+            if (entry != null && now - entry.loadedAt > ttlMillis && !entry.refreshing) {
+                entry.refreshing = true;
+                refresh = true;
+            }
+        }
+        
+        if (entry == null) {
+            misses.increment();
+            CompletableFuture<V> load = loader.apply(key);
+            return Futures.propagateCancellation(load.thenApply(value -> {
+                put(key, value);
+                return value;
+            }), load);
+        }
+        
+        if (refresh) {
+            staleHits.increment();
+            Entry<V> staleEntry = entry;
+            loader.apply(key).whenComplete((value, error) -> {
+                if (error == null) {
+                    put(key, value);
+                } else {
+                    staleEntry.refreshing = false;
+                }
+            });
+        } else {
+            hits.increment();
+        }
+        return CompletableFuture.completedFuture(entry.value);
+    }
+    
+    public synchronized V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null ? entry.value : null;
+    }
+    
+    public synchronized void put(K key, V value) {
+        put(key, value, System.currentTimeMillis());
+    }
+    
+    /** Adds a value that is already due for a refresh, such as one restored from disk. */
+    public synchronized void putExpired(K key, V value) {
+        put(key, value, System.currentTimeMillis() - ttlMillis - 1);
+    }
+    
+    private void put(K key, V value, long loadedAt) {
+        Entry<V> entry = new Entry<>(value, weigher.applyAsInt(value), loadedAt);
+        Entry<V> previous = entries.put(key, entry);
+        if (previous != null) {
+            totalWeight -= previous.weight;
+        }
+        totalWeight += entry.weight;
+        
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (totalWeight > maxWeight && eldest.hasNext()) {
+            Map.Entry<K, Entry<V>> candidate = eldest.next();
+            if (candidate.getValue() == entry) {
+                break;
+            }
+            totalWeight -= candidate.getValue().weight;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+    
+    public synchronized void invalidate(K key) {
+        remove(key);
+    }
+    
+    public synchronized List<K> keys() {
+        return new ArrayList<>(entries.keySet());
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    private void remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+    }
+    
+    public long getHitCount() { return hits.sum(); }
+    public long getStaleHitCount() { return staleHits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+    
+    public double getHitRatio() {
+        long served = hits.sum() + staleHits.sum();
+        long total = served + misses.sum();
+        return total == 0 ? 0.0 : (double) served / total;
+    }
+    
+    private static class Entry<V> {
+        final V value;
+        final int weight;
+        final long loadedAt;
+        volatile boolean refreshing;
+        
+        Entry(V value, int weight, long loadedAt) {
+            this.value = value;
+            this.weight = weight;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
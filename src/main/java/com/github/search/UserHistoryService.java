@@ -1,66 +1,232 @@
 package com.github.search;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
 
+/**
+ * Recent searches and favorites: two snapshot files plus a journal of the changes made since.
+ *
+ * Nothing is read until the history or favorites are first asked for, so creating the
+ * service costs nothing and the files are loaded by whichever thread needs them first.
+ */
 public class UserHistoryService {
     private static final String HISTORY_FILE = "search_history.txt";
     private static final String FAVORITES_FILE = "favorites.txt";
+    // Append-only log of changes made since the two snapshot files above were written
+    private static final String JOURNAL_FILE = "history.journal";
     private static final int MAX_HISTORY_SIZE = 10;
+    private static final int COMPACT_AFTER_OPS = 500;
+    
+    private static final String OP_HISTORY_ADD = "H";
+    private static final String OP_HISTORY_CLEAR = "C";
+    private static final String OP_FAVORITE_ADD = "F+";
+    private static final String OP_FAVORITE_REMOVE = "F-";
+    
+    private final Path historyFile;
+    private final Path favoritesFile;
+    private final Path journalFile;
     
     private List<String> searchHistory;
-    private List<String> favorites;
+    // Insertion-ordered set: O(1) membership checks while keeping the order favorites were added
+    private Set<String> favorites;
+    private boolean loaded;
+    
+    // Mutations only touch memory and queue a journal line; one writer thread appends
+    // everything queued so far with a single flush (group commit) and compacts now and then.
+    private final LinkedBlockingQueue<String> pendingOps = new LinkedBlockingQueue<>();
+    private final Object writeLock = new Object();
+    private Thread writer;
+    private long flushedOps;
+    private long queuedOps;
+    private int opsSinceCompaction;
     
     public UserHistoryService() {
+        this(Paths.get(""));
+    }
+    
+    public UserHistoryService(Path directory) {
+        this.historyFile = directory.resolve(HISTORY_FILE);
+        this.favoritesFile = directory.resolve(FAVORITES_FILE);
+        this.journalFile = directory.resolve(JOURNAL_FILE);
         this.searchHistory = new ArrayList<>();
-        this.favorites = new ArrayList<>();
+        this.favorites = new LinkedHashSet<>();
+    }
+    
+    public synchronized void addToHistory(String username) {
+        ensureLoaded();
+        applyHistoryAdd(username);
+        enqueue(OP_HISTORY_ADD, username);
+    }
+    
+    public synchronized void addToFavorites(String username) {
+        ensureLoaded();
+        if (favorites.add(username)) {
+            enqueue(OP_FAVORITE_ADD, username);
+        }
+    }
+    
+    public synchronized void removeFromFavorites(String username) {
+        ensureLoaded();
+        if (favorites.remove(username)) {
+            enqueue(OP_FAVORITE_REMOVE, username);
+        }
+    }
+    
+    public synchronized List<String> getHistory() {
+        ensureLoaded();
+        return new ArrayList<>(searchHistory);
+    }
+    
+    public synchronized List<String> getFavorites() {
+        ensureLoaded();
+        return new ArrayList<>(favorites);
+    }
+    
+    public synchronized boolean isFavorite(String username) {
+        ensureLoaded();
+        return favorites.contains(username);
+    }
+    
+    public synchronized void clearHistory() {
+        ensureLoaded();
+        searchHistory.clear();
+        enqueue(OP_HISTORY_CLEAR, "");
+    }
+    
+    /** Blocks until every change made so far is on disk. */
+    public void flush() {
+        long target;
+        synchronized (this) {
+            target = queuedOps;
+        }
+        synchronized (writeLock) {
+            while (flushedOps < target) {
+                try {
+                    writeLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    // Caller holds the service lock
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
         loadHistory();
         loadFavorites();
+        replayJournal();
+        loaded = true;
     }
     
-    public void addToHistory(String username) {
+    private void applyHistoryAdd(String username) {
         // Remove if already exists
         searchHistory.remove(username);
         // Add to beginning
         searchHistory.add(0, username);
         // Keep only last MAX_HISTORY_SIZE items
         if (searchHistory.size() > MAX_HISTORY_SIZE) {
-            searchHistory = searchHistory.subList(0, MAX_HISTORY_SIZE);
+            searchHistory = new ArrayList<>(searchHistory.subList(0, MAX_HISTORY_SIZE));
         }
-        saveHistory();
     }
     
-    public void addToFavorites(String username) {
-        if (!favorites.contains(username)) {
-            favorites.add(username);
-            saveFavorites();
+    // Caller holds the service lock, so journal order always matches the in-memory order
+    private void enqueue(String op, String username) {
+        if (writer == null) {
+            writer = new Thread(this::writeLoop, "history-journal-writer");
+            writer.setDaemon(true);
+            writer.start();
         }
+        queuedOps++;
+        pendingOps.add(op + "\t" + username);
     }
     
-    public void removeFromFavorites(String username) {
-        favorites.remove(username);
-        saveFavorites();
+    private void writeLoop() {
+        List<String> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(pendingOps.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pendingOps.drainTo(batch);
+            appendToJournal(batch);
+            opsSinceCompaction += batch.size();
+            if (opsSinceCompaction >= COMPACT_AFTER_OPS) {
+                compact();
+            }
+            markFlushed(batch.size());
+            batch.clear();
+        }
     }
     
-    public List<String> getHistory() {
-        return new ArrayList<>(searchHistory);
+    private void appendToJournal(List<String> batch) {
+        try (FileOutputStream out = new FileOutputStream(journalFile.toFile(), true);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            for (String op : batch) {
+                writer.write(op);
+                writer.write('\n');
+            }
+            writer.flush();
+            out.getFD().sync();
+        } catch (IOException e) {
+            System.err.println("Failed to save search history: " + e.getMessage());
+        }
     }
     
-    public List<String> getFavorites() {
-        return new ArrayList<>(favorites);
+    private void markFlushed(int count) {
+        synchronized (writeLock) {
+            flushedOps += count;
+            writeLock.notifyAll();
+        }
     }
     
-    public boolean isFavorite(String username) {
-        return favorites.contains(username);
+    // Writes the current state as fresh snapshot files (temp file + atomic rename) and starts
+    // an empty journal. Ops still queued are already reflected in the snapshot, so they are dropped.
+    private void compact() {
+        List<String> historySnapshot;
+        List<String> favoritesSnapshot;
+        List<String> absorbed = new ArrayList<>();
+        synchronized (this) {
+            pendingOps.drainTo(absorbed);
+            historySnapshot = new ArrayList<>(searchHistory);
+            favoritesSnapshot = new ArrayList<>(favorites);
+        }
+        try {
+            writeAtomically(historyFile, historySnapshot);
+            writeAtomically(favoritesFile, favoritesSnapshot);
+            Files.deleteIfExists(journalFile);
+            opsSinceCompaction = 0;
+        } catch (IOException e) {
+            System.err.println("Failed to compact search history: " + e.getMessage());
+            // Keep the absorbed ops in the journal so nothing is lost
+            appendToJournal(absorbed);
+            opsSinceCompaction += absorbed.size();
+        }
+        markFlushed(absorbed.size());
     }
     
-    public void clearHistory() {
-        searchHistory.clear();
-        saveHistory();
+    private static void writeAtomically(Path target, List<String> usernames) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp.toFile());
+             PrintWriter writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            for (String username : usernames) {
+                writer.println(username);
+            }
+            writer.flush();
+            out.getFD().sync();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
     
     private void loadHistory() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(HISTORY_FILE))) {
+        try (BufferedReader reader = Files.newBufferedReader(historyFile, StandardCharsets.UTF_8)) {
             String line;
             while ((line = reader.readLine()) != null) {
                 searchHistory.add(line.trim());
@@ -70,18 +236,8 @@ public class UserHistoryService {
         }
     }
     
-    private void saveHistory() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(HISTORY_FILE))) {
-            for (String username : searchHistory) {
-                writer.println(username);
-            }
-        } catch (IOException e) {
-            System.err.println("Failed to save search history: " + e.getMessage());
-        }
-    }
-    
     private void loadFavorites() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(FAVORITES_FILE))) {
+        try (BufferedReader reader = Files.newBufferedReader(favoritesFile, StandardCharsets.UTF_8)) {
             String line;
             while ((line = reader.readLine()) != null) {
                 favorites.add(line.trim());
@@ -91,13 +247,33 @@ public class UserHistoryService {
         }
     }
     
-    private void saveFavorites() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(FAVORITES_FILE))) {
-            for (String username : favorites) {
-                writer.println(username);
-            }
+    private void replayJournal() {
+        String journal;
+        try {
+            journal = Files.readString(journalFile, StandardCharsets.UTF_8);
         } catch (IOException e) {
-            System.err.println("Failed to save favorites: " + e.getMessage());
+            // No journal yet, that's okay
+            return;
+        }
+        // Only newline-terminated entries are complete; anything after the last newline is a torn write
+        String[] lines = journal.substring(0, journal.lastIndexOf('\n') + 1).split("\n");
+        for (String line : lines) {
+            int tab = line.indexOf('\t');
+            if (tab < 0) {
+                continue;
+            }
+            String op = line.substring(0, tab);
+            String username = line.substring(tab + 1).trim();
+            switch (op) {
+                case OP_HISTORY_ADD -> applyHistoryAdd(username);
+                case OP_HISTORY_CLEAR -> searchHistory.clear();
+                case OP_FAVORITE_ADD -> favorites.add(username);
+                case OP_FAVORITE_REMOVE -> favorites.remove(username);
+                default -> {
+                    // Unknown op; skip it
+                }
+            }
+            opsSinceCompaction++;
         }
     }
 }
@@ -0,0 +1,9 @@
+package com.github.search;
+
+/** 404: the user (or the user's list being asked for) does not exist. */
+public class UserNotFoundException extends GitHubApiException {
+    
+    public UserNotFoundException(String path) {
+        super("404 - User not found: " + path, 404);
+    }
+}
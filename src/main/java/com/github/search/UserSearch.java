@@ -0,0 +1,218 @@
+package com.github.search;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Search-as-you-type over GitHub's user search.
+ *
+ * Keystrokes are debounced, and a query that has been typed past is cancelled wherever it
+ * is: waiting out the debounce, queued behind the search quota, or already on the wire.
+ * Answers are cached by query. When a shorter query already returned every match, a longer
+ * one that extends it is answered by filtering those matches locally and never sent; when it
+ * returned only the first page, the filtered matches are shown at once and replaced when
+ * GitHub answers. Logins from the {@link LoginIndex} are listed first either way.
+ */
+public class UserSearch implements AutoCloseable {
+    
+    public interface Listener {
+        /** {@code pending} is true while a request that may change the list is still to come. */
+        void onResults(String query, List<String> logins, boolean pending);
+    }
+    
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 250;
+    private static final int MIN_REMOTE_LENGTH = 2;
+    private static final int PER_PAGE = 100;
+    private static final int LOCAL_LIMIT = 8;
+    private static final int MAX_CACHED_QUERIES = 256;
+    private static final long CACHE_TTL_MILLIS = 10 * 60 * 1000L;
+    
+    private final GitHubApiService apiService;
+    private final LoginIndex loginIndex;
+    private final Executor callbackExecutor;
+    private final Listener listener;
+    private final long debounceMillis;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-search-debounce");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // Lower-cased query -> every login GitHub returned for it
+    private final Map<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_CACHED_QUERIES;
+        }
+    };
+    
+    private final AtomicLong generation = new AtomicLong();
+    private ScheduledFuture<?> debounce;
+    private CompletableFuture<UserSearchResult> inFlight;
+    
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong answeredLocally = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    
+    public UserSearch(GitHubApiService apiService, LoginIndex loginIndex, Executor callbackExecutor,
+                      Listener listener) {
+        this(apiService, loginIndex, callbackExecutor, listener, DEFAULT_DEBOUNCE_MILLIS);
+    }
+    
+    public UserSearch(GitHubApiService apiService, LoginIndex loginIndex, Executor callbackExecutor,
+                      Listener listener, long debounceMillis) {
+        this.apiService = apiService;
+        this.loginIndex = loginIndex;
+        this.callbackExecutor = callbackExecutor;
+        this.listener = listener;
+        this.debounceMillis = debounceMillis;
+    }
+    
+    /** The text changed: answers what it can now and schedules a search for the rest. */
+    public void update(String text) {
+        String query = text == null ? "" : text.trim();
+        long current = generation.incrementAndGet();
+        cancelPending();
+        if (query.isEmpty()) {
+            deliver(current, query, List.of(), false);
+            return;
+        }
+        
+        String key = query.toLowerCase(Locale.ROOT);
+        List<String> local = loginIndex.suggest(query, LOCAL_LIMIT);
+        Entry known = lookup(key);
+        boolean remote = key.length() >= MIN_REMOTE_LENGTH && (known == null || !known.complete);
+        if (!remote && known != null) {
+            answeredLocally.incrementAndGet();
+        }
+        deliver(current, query, merge(local, known != null ? known.logins : List.of()), remote);
+        if (!remote) {
+            return;
+        }
+        
+        synchronized (this) {
+            debounce = timer.schedule(() -> send(current, query, key, local), debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /** Drops whatever is pending, e.g. because the user picked a login or left the field. */
+    public void cancel() {
+        generation.incrementAndGet();
+        cancelPending();
+    }
+    
+    public long getSentCount() { return sent.get(); }
+    public long getAnsweredLocallyCount() { return answeredLocally.get(); }
+    public long getCancelledCount() { return cancelled.get(); }
+    
+    @Override
+    public void close() {
+        cancel();
+        timer.shutdownNow();
+    }
+    
+    private void send(long current, String query, String key, List<String> local) {
+        CompletableFuture<UserSearchResult> search;
+        synchronized (this) {
+            if (generation.get() != current) {
+                return;
+            }
+            sent.incrementAndGet();
+            search = apiService.searchUsersAsync(query, PER_PAGE, RateLimitScheduler.Priority.INTERACTIVE);
+            inFlight = search;
+        }
+        search.whenComplete((result, error) -> {
+            if (error != null) {
+                if (!search.isCancelled()) {
+                    // Rate limited or failing: keep what is shown and stop waiting
+                    Entry known = lookup(key);
+                    deliver(current, query, merge(local, known != null ? known.logins : List.of()), false);
+                }
+                return;
+            }
+            List<String> logins = new ArrayList<>(result.getAccounts().size());
+            for (GitHubAccount account : result.getAccounts()) {
+                logins.add(account.getLogin());
+            }
+            synchronized (cache) {
+                cache.put(key, new Entry(logins, result.isComplete(), System.currentTimeMillis()));
+            }
+            deliver(current, query, merge(local, logins), false);
+        });
+    }
+    
+    // The query's own entry, or the one of its longest cached prefix narrowed down to it;
+    // complete means nothing more needs to be asked
+    private Entry lookup(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            for (int length = key.length(); length >= MIN_REMOTE_LENGTH; length--) {
+                Entry entry = cache.get(key.substring(0, length));
+                if (entry == null || now - entry.fetchedAt > CACHE_TTL_MILLIS) {
+                    continue;
+                }
+                if (length == key.length()) {
+                    // Asked before: that answer stands until it expires, even if it was only a first page
+                    return new Entry(entry.logins, true, entry.fetchedAt);
+                }
+                List<String> narrowed = new ArrayList<>();
+                for (String login : entry.logins) {
+                    if (login.toLowerCase(Locale.ROOT).contains(key)) {
+                        narrowed.add(login);
+                    }
+                }
+                return new Entry(narrowed, entry.complete, entry.fetchedAt);
+            }
+        }
+        return null;
+    }
+    
+    private synchronized void cancelPending() {
+        if (debounce != null) {
+            debounce.cancel(false);
+            debounce = null;
+        }
+        if (inFlight != null) {
+            if (inFlight.cancel(true)) {
+                cancelled.incrementAndGet();
+            }
+            inFlight = null;
+        }
+    }
+    
+    private void deliver(long current, String query, List<String> logins, boolean pending) {
+        callbackExecutor.execute(() -> {
+            if (generation.get() == current) {
+                listener.onResults(query, logins, pending);
+            }
+        });
+    }
+    
+    // Known logins first, then search matches, without duplicates (logins are case-insensitive)
+    private static List<String> merge(List<String> local, List<String> remote) {
+        List<String> merged = new ArrayList<>(local.size() + remote.size());
+        Set<String> seen = new HashSet<>();
+        for (List<String> part : List.of(local, remote)) {
+            for (String login : part) {
+                if (seen.add(login.toLowerCase(Locale.ROOT))) {
+                    merged.add(login);
+                }
+            }
+        }
+        return merged;
+    }
+    
+    private record Entry(List<String> logins, boolean complete, long fetchedAt) {}
+}
@@ -0,0 +1,24 @@
+package com.github.search;
+
+import java.util.List;
+
+/** One page of matches from the user search API. */
+public class UserSearchResult {
+    private final int totalCount;
+    private final boolean incompleteResults;
+    private final List<GitHubAccount> accounts;
+    
+    public UserSearchResult(int totalCount, boolean incompleteResults, List<GitHubAccount> accounts) {
+        this.totalCount = totalCount;
+        this.incompleteResults = incompleteResults;
+        this.accounts = accounts;
+    }
+    
+    // Getters
+    public int getTotalCount() { return totalCount; }
+    /** GitHub stopped searching early (it timed out); there may be more matches than the total says. */
+    public boolean isIncompleteResults() { return incompleteResults; }
+    public List<GitHubAccount> getAccounts() { return accounts; }
+    /** Whether this page holds every match, so narrower queries can be answered from it. */
+    public boolean isComplete() { return !incompleteResults && accounts.size() >= totalCount; }
+}
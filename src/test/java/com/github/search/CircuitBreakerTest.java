@@ -0,0 +1,77 @@
+package com.github.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+    
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 60_000);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+    
+    @Test
+    void staysClosedBelowFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 60_000);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(breaker.tryAcquire());
+            if (i % 3 == 2) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+    
+    @Test
+    void opensAtFailureRateThenHalfOpensAndCloses() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 100);
+        breaker.tryAcquire();
+        breaker.onSuccess();
+        breaker.tryAcquire();
+        breaker.onSuccess();
+        breaker.tryAcquire();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.tryAcquire();
+        breaker.onFailure();
+        
+        // 2 of 4 failed: open, and calls are refused
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1, breaker.getTimesOpened());
+        assertEquals(1, breaker.getRejectedCount());
+        
+        Thread.sleep(150);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        // Only one trial call at a time
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+    
+    @Test
+    void failedTrialReopens() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(4, 2, 0.5, 100);
+        for (int i = 0; i < 2; i++) {
+            breaker.tryAcquire();
+            breaker.onFailure();
+        }
+        Thread.sleep(150);
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getTimesOpened());
+    }
+}
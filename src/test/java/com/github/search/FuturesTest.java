@@ -0,0 +1,73 @@
+package com.github.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class FuturesTest {
+    
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    
+    @AfterEach
+    void tearDown() {
+        timer.shutdownNow();
+    }
+    
+    @Test
+    void hedgeCancelsTheLoser() throws Exception {
+        List<CompletableFuture<String>> copies = new CopyOnWriteArrayList<>();
+        AtomicInteger hedges = new AtomicInteger();
+        CompletableFuture<String> result = Futures.hedge(() -> {
+            CompletableFuture<String> copy = new CompletableFuture<>();
+            copies.add(copy);
+            return copy;
+        }, 50, timer, hedges::incrementAndGet);
+        
+        // The first copy never answers; once the backup is out, it wins
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (copies.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, copies.size());
+        copies.get(1).complete("backup");
+        
+        assertEquals("backup", result.get(5, TimeUnit.SECONDS));
+        assertTrue(copies.get(0).isCancelled());
+        assertFalse(copies.get(1).isCancelled());
+        assertEquals(1, hedges.get());
+    }
+    
+    @Test
+    void noHedgeWhenTheFirstCopyIsFast() throws Exception {
+        AtomicInteger sent = new AtomicInteger();
+        CompletableFuture<String> result = Futures.hedge(() -> {
+            sent.incrementAndGet();
+            return CompletableFuture.completedFuture("first");
+        }, 50, timer, () -> { });
+        assertEquals("first", result.get(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(1, sent.get());
+    }
+    
+    @Test
+    void cancellingTheResultCancelsEveryCopy() throws Exception {
+        List<CompletableFuture<String>> copies = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> result = Futures.hedge(() -> {
+            CompletableFuture<String> copy = new CompletableFuture<>();
+            copies.add(copy);
+            return copy;
+        }, 10_000, timer, () -> { });
+        result.cancel(true);
+        assertTrue(copies.get(0).isCancelled());
+    }
+}
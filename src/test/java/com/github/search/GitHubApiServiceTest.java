@@ -0,0 +1,160 @@
+package com.github.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** The client's error mapping, retries, timeouts, hedging and circuit breaker against a local stub. */
+class GitHubApiServiceTest {
+    
+    private static final String USER_JSON = "{\"login\":\"octocat\",\"public_repos\":8}";
+    
+    private StubServer stub;
+    private GitHubApiService service;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubServer();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        service = new GitHubApiService(client, null, new RateLimitScheduler(1000, 100), stub.baseUrl());
+        service.setRetryPolicy(new RetryPolicy(3, 1, 5));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+    
+    @Test
+    void notFoundIsUserNotFound() {
+        Throwable failure = failure(service.getUserAsync("ghost"));
+        assertInstanceOf(UserNotFoundException.class, failure);
+        // Not retried: a 404 is an answer
+        assertEquals(1, stub.calls("/users/ghost"));
+    }
+    
+    @Test
+    void forbiddenWithExhaustedQuotaIsRateLimited() {
+        stub.on("/users/limited", (exchange, call) -> {
+            exchange.getResponseHeaders().set("X-RateLimit-Remaining", "0");
+            exchange.getResponseHeaders().set("Retry-After", "0");
+            StubServer.send(exchange, 403, "{\"message\":\"API rate limit exceeded\"}");
+        });
+        RateLimitedException failure = assertInstanceOf(RateLimitedException.class,
+                failure(service.getUserAsync("limited")));
+        assertEquals(403, failure.getStatusCode());
+    }
+    
+    @Test
+    void tooManyRequestsIsRateLimited() {
+        stub.on("/users/busy", (exchange, call) -> {
+            exchange.getResponseHeaders().set("Retry-After", "0");
+            StubServer.send(exchange, 429, "{\"message\":\"Too many requests\"}");
+        });
+        RateLimitedException failure = assertInstanceOf(RateLimitedException.class,
+                failure(service.getUserAsync("busy")));
+        assertEquals(429, failure.getStatusCode());
+    }
+    
+    @Test
+    void serverErrorsAreRetriedExactlyMaxAttemptsTimes() {
+        stub.on("/users/flaky", (exchange, call) -> StubServer.send(exchange, 502, "{}"));
+        assertInstanceOf(ServerErrorException.class, failure(service.getUserAsync("flaky")));
+        assertEquals(3, stub.calls("/users/flaky"));
+        assertEquals(2, service.getMetrics().getRetryCount());
+    }
+    
+    @Test
+    void serverErrorThenSuccessReturnsTheUser() {
+        stub.on("/users/octocat", (exchange, call) -> {
+            if (call == 1) {
+                StubServer.send(exchange, 503, "{}");
+            } else {
+                StubServer.send(exchange, 200, USER_JSON);
+            }
+        });
+        assertEquals("octocat", service.getUserAsync("octocat").join().getLogin());
+        assertEquals(2, stub.calls("/users/octocat"));
+    }
+    
+    @Test
+    void readTimeoutFiresOnASlowBody() {
+        stub.on("/users/slow", (exchange, call) -> {
+            byte[] body = USER_JSON.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(body, 0, 5);
+            out.flush();
+            Thread.sleep(5_000);
+            out.write(body, 5, body.length - 5);
+        });
+        service.setRetryPolicy(RetryPolicy.NONE);
+        service.setTimeouts(Duration.ofSeconds(5), Duration.ofMillis(300));
+        
+        long start = System.nanoTime();
+        assertInstanceOf(ApiTimeoutException.class, failure(service.getUserAsync("slow")));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 3_000);
+    }
+    
+    @Test
+    void requestTimeoutFiresWhenNoHeadersArrive() {
+        stub.on("/users/silent", (exchange, call) -> Thread.sleep(5_000));
+        service.setRetryPolicy(RetryPolicy.NONE);
+        service.setTimeouts(Duration.ofMillis(300), Duration.ofSeconds(5));
+        assertInstanceOf(ApiTimeoutException.class, failure(service.getUserAsync("silent")));
+    }
+    
+    @Test
+    void hedgedRequestAnswersFromTheBackupCopy() {
+        // The first copy stalls past the default hedge delay (1 s); the backup answers at once
+        stub.on("/users/hedged", (exchange, call) -> {
+            if (call == 1) {
+                Thread.sleep(10_000);
+            }
+            StubServer.send(exchange, 200, USER_JSON);
+        });
+        service.setHedging(true);
+        
+        long start = System.nanoTime();
+        assertEquals("octocat", service.getUserAsync("hedged").join().getLogin());
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(millis < 5_000, "took " + millis + " ms");
+        assertEquals(2, stub.calls("/users/hedged"));
+        assertEquals(1, service.getMetrics().getHedgeCount());
+    }
+    
+    @Test
+    void openCircuitRefusesWithoutSending() {
+        stub.on("/users/down", (exchange, call) -> StubServer.send(exchange, 500, "{}"));
+        service.setRetryPolicy(RetryPolicy.NONE);
+        // The default breaker opens once 20 recorded calls are at least half failures
+        for (int i = 0; i < 20; i++) {
+            assertInstanceOf(ServerErrorException.class, failure(service.getUserAsync("down")));
+        }
+        assertSame(CircuitBreaker.State.OPEN, service.getCircuitBreaker().getState());
+        
+        assertInstanceOf(CircuitOpenException.class, failure(service.getUserAsync("down")));
+        assertEquals(20, stub.calls("/users/down"));
+    }
+    
+    private static Throwable failure(CompletableFuture<?> future) {
+        CompletionException error = assertThrows(CompletionException.class, future::join);
+        return error.getCause();
+    }
+}
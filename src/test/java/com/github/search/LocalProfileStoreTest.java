@@ -0,0 +1,129 @@
+package com.github.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocalProfileStoreTest {
+    
+    private static final int USERS = 10;
+    // Enough overwritten records of this size to pass the compaction threshold several times
+    private static final int ROUNDS = 600;
+    private static final String PADDING = "x".repeat(500);
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void compactionKeepsLatestRecords() throws IOException {
+        LocalProfileStore store = new LocalProfileStore(directory);
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < USERS; i++) {
+                store.putUser(user("user" + i, round));
+            }
+            store.putRepositories("user" + (round % USERS), List.of(repository(round, "repo" + round)));
+        }
+        // Reads through the index while compactions may still be switching generations
+        assertLatest(store);
+        store.close();
+        
+        List<String> files = dataFiles();
+        assertEquals(1, files.size(), "old generations are deleted: " + files);
+        assertFalse(files.contains("profiles.0.dat"), "compaction ran: " + files);
+        
+        LocalProfileStore reopened = new LocalProfileStore(directory);
+        assertLatest(reopened);
+        assertTrue(reopened.getFileSize() < 2L * reopened.getLiveBytes() + 1024 * 1024);
+        reopened.close();
+    }
+    
+    @Test
+    void tornTailIsCutOff() throws IOException {
+        LocalProfileStore store = new LocalProfileStore(directory);
+        store.putUser(user("kept", 1));
+        long validSize = store.getFileSize();
+        store.putUser(user("torn", 1));
+        store.close();
+        
+        // A crash halfway through the second record
+        Path dataFile = directory.resolve(dataFiles().get(0));
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.WRITE)) {
+            channel.truncate(validSize + 20);
+        }
+        
+        LocalProfileStore reopened = new LocalProfileStore(directory);
+        assertEquals(1, reopened.getUser("kept").getFollowers());
+        assertNull(reopened.getUser("torn"));
+        assertEquals(validSize, Files.size(dataFile));
+        
+        reopened.putUser(user("after", 2));
+        reopened.close();
+        LocalProfileStore again = new LocalProfileStore(directory);
+        assertEquals(2, again.getUser("after").getFollowers());
+        assertEquals(List.of("after", "kept"), again.logins().stream().sorted().toList());
+        again.close();
+    }
+    
+    @Test
+    void corruptRecordEndsTheScan() throws IOException {
+        LocalProfileStore store = new LocalProfileStore(directory);
+        store.putUser(user("kept", 1));
+        long validSize = store.getFileSize();
+        store.putUser(user("corrupt", 1));
+        store.close();
+        
+        // Flip a byte inside the second record's body so its checksum no longer matches
+        Path dataFile = directory.resolve(dataFiles().get(0));
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, validSize + 12);
+            one.put(0, (byte) ~one.get(0)).rewind();
+            channel.write(one, validSize + 12);
+        }
+        
+        LocalProfileStore reopened = new LocalProfileStore(directory);
+        assertEquals(1, reopened.getUser("kept").getFollowers());
+        assertNull(reopened.getUser("corrupt"));
+        assertEquals(validSize, reopened.getFileSize());
+        reopened.close();
+    }
+    
+    private static void assertLatest(LocalProfileStore store) {
+        for (int i = 0; i < USERS; i++) {
+            assertEquals(ROUNDS - 1, store.getUser("user" + i).getFollowers());
+        }
+        int lastRound = ROUNDS - 1;
+        List<GitHubRepository> repositories = store.getRepositories("user" + (lastRound % USERS));
+        assertEquals(1, repositories.size());
+        assertEquals("repo" + lastRound, repositories.get(0).getName());
+        assertEquals("repo" + lastRound, store.getRepository(lastRound).getName());
+    }
+    
+    private List<String> dataFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).filter(name -> name.endsWith(".dat")).toList();
+        }
+    }
+    
+    private static GitHubUser user(String login, int followers) {
+        return new GitHubUser(login, "Name", "https://avatars.githubusercontent.com/u/1", PADDING, 1, followers, 0,
+                null, null, null, null, "2020-01-01T00:00:00Z", "https://github.com/" + login);
+    }
+    
+    private static GitHubRepository repository(int id, String name) {
+        return new GitHubRepository(id, name, null, "https://github.com/o/" + name, 0, 0, "Java",
+                "2024-01-01T00:00:00Z");
+    }
+}
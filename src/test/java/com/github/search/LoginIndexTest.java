@@ -0,0 +1,47 @@
+package com.github.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LoginIndexTest {
+    
+    @Test
+    void addAllMergesSortsAndDropsDuplicates() {
+        LoginIndex index = new LoginIndex();
+        index.record("Octocat", 1);
+        index.add("bob");
+        index.addAll(List.of("carol", "octocat", "Alice", "bob", "alice", "anna"));
+        
+        assertEquals(5, index.size());
+        assertEquals(List.of("Alice", "anna"), index.suggest("a", 10));
+        // The recorded login keeps its use count and spelling
+        assertEquals(List.of("Octocat", "Alice"), index.suggest("", 2));
+    }
+    
+    @Test
+    void addAllGrowsPastInitialCapacity() {
+        LoginIndex index = new LoginIndex();
+        List<String> logins = new ArrayList<>();
+        for (int i = 999; i >= 0; i--) {
+            logins.add("user" + i);
+        }
+        index.addAll(logins);
+        index.add("user5000");
+        
+        assertEquals(1001, index.size());
+        assertTrue(index.contains("USER42"));
+        assertEquals(List.of("user5", "user50", "user500", "user5000"), index.suggest("user5", 4));
+    }
+    
+    @Test
+    void suggestWithoutLimitIsEmpty() {
+        LoginIndex index = new LoginIndex();
+        index.record("octocat", 1);
+        assertEquals(List.of(), index.suggest("o", 0));
+        assertEquals(List.of(), index.suggest("o", -1));
+    }
+}
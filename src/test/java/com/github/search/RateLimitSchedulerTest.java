@@ -0,0 +1,37 @@
+package com.github.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class RateLimitSchedulerTest {
+    
+    @Test
+    void keepsDispatchingAfterASupplierThrows() throws Exception {
+        try (StubServer stub = new StubServer()) {
+            stub.on("/ok", (exchange, call) -> StubServer.send(exchange, 200, "ok"));
+            RateLimitScheduler scheduler = new RateLimitScheduler(1000, 100);
+            
+            CompletableFuture<HttpResponse<String>> failed = scheduler.submit(RateLimitScheduler.Priority.INTERACTIVE,
+                    () -> {
+                        throw new IllegalArgumentException("bad request");
+                    });
+            ExecutionException error = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, error.getCause());
+            
+            HttpRequest request = HttpRequest.newBuilder(URI.create(stub.baseUrl() + "/ok")).build();
+            CompletableFuture<HttpResponse<String>> next = scheduler.submit(RateLimitScheduler.Priority.INTERACTIVE,
+                    () -> HttpClient.newHttpClient().sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            assertEquals("ok", next.get(5, TimeUnit.SECONDS).body());
+        }
+    }
+}
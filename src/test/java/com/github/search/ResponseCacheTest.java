@@ -0,0 +1,88 @@
+package com.github.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResponseCacheTest {
+    
+    private static final int BODY_BYTES = 1000;
+    // Room for eleven entries with their headers, but not twelve
+    private static final long BUDGET = 11 * BODY_BYTES + 600;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void diskTierSurvivesRestart() {
+        new ResponseCache(4, directory).put("https://api/users/a", "\"a\"", null, 0, new byte[BODY_BYTES], null);
+        
+        ResponseCache.Entry entry = new ResponseCache(4, directory).get("https://api/users/a");
+        assertNotNull(entry);
+        assertEquals("\"a\"", entry.getEtag());
+        assertEquals(BODY_BYTES, entry.getBody().length);
+    }
+    
+    @Test
+    void diskTierDropsLeastRecentlyUsedOverBudget() throws IOException {
+        ResponseCache cache = new ResponseCache(1, directory, BUDGET);
+        for (int i = 0; i < 10; i++) {
+            cache.put("https://api/users/" + i, "\"" + i + "\"", null, 0, new byte[BODY_BYTES], null);
+            ageFiles();
+        }
+        // Read from disk (the memory tier holds one entry), which marks it as recently used
+        assertNotNull(cache.get("https://api/users/0"));
+        ageFiles();
+        cache.put("https://api/users/10", "\"10\"", null, 0, new byte[BODY_BYTES], null);
+        ageFiles();
+        cache.put("https://api/users/11", "\"11\"", null, 0, new byte[BODY_BYTES], null);
+        
+        assertTrue(cache.getDiskBytes() <= BUDGET * 3 / 4);
+        assertEquals(cache.getDiskBytes(), directorySize());
+        ResponseCache reopened = new ResponseCache(1, directory, BUDGET);
+        assertNotNull(reopened.get("https://api/users/0"));
+        assertNotNull(reopened.get("https://api/users/11"));
+        assertNull(reopened.get("https://api/users/1"));
+    }
+    
+    @Test
+    void openingPrunesToBudget() throws IOException {
+        ResponseCache cache = new ResponseCache(1, directory);
+        for (int i = 0; i < 10; i++) {
+            cache.put("https://api/users/" + i, "\"" + i + "\"", null, 0, new byte[BODY_BYTES], null);
+        }
+        
+        ResponseCache smaller = new ResponseCache(1, directory, 5 * BODY_BYTES);
+        assertTrue(directorySize() <= 5 * BODY_BYTES);
+        assertEquals(directorySize(), smaller.getDiskBytes());
+    }
+    
+    // Modification times are coarse on some file systems; move earlier files clearly into the past
+    private void ageFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                long modified = Files.getLastModifiedTime(file).toMillis();
+                Files.setLastModifiedTime(file, FileTime.fromMillis(modified - 10_000));
+            }
+        }
+    }
+    
+    private long directorySize() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            long total = 0;
+            for (Path file : (Iterable<Path>) files::iterator) {
+                total += Files.size(file);
+            }
+            return total;
+        }
+    }
+}
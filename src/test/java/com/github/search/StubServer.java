@@ -0,0 +1,78 @@
+package com.github.search;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** A local HTTP server with a scripted answer per path, counting the requests each path gets. */
+final class StubServer implements AutoCloseable {
+    
+    interface Responder {
+        /** Answers the {@code call}-th (1-based) request to its path. */
+        void respond(HttpExchange exchange, int call) throws IOException, InterruptedException;
+    }
+    
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, Responder> responders = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    
+    StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            int call = calls.computeIfAbsent(path, k -> new AtomicInteger()).incrementAndGet();
+            Responder responder = responders.get(path);
+            try {
+                if (responder == null) {
+                    send(exchange, 404, "{\"message\":\"Not Found\"}");
+                } else {
+                    responder.respond(exchange, call);
+                }
+            } catch (IOException | InterruptedException e) {
+                // The client gave up on this request
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+    
+    StubServer on(String path, Responder responder) {
+        responders.put(path, responder);
+        return this;
+    }
+    
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    int calls(String path) {
+        AtomicInteger count = calls.get(path);
+        return count == null ? 0 : count.get();
+    }
+    
+    static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}